@@ -10,7 +10,7 @@ public class Main extends JFrame {
     private static final int ARRAY_SIZE = 100;
     
     private VisualizationPanel visualPanel;
-    private JComboBox<String> algorithmSelector;
+    private JComboBox<SortAlgorithm> algorithmSelector;
     private JButton startButton;
     private JButton generateButton;
     private JSlider speedSlider;
@@ -21,7 +21,7 @@ public class Main extends JFrame {
     private boolean sorting = false;
     
     public Main() {
-        setTitle("Algorithm Visualizer - Top 5 Sorting Algorithms");
+        setTitle("Algorithm Visualizer - Sorting Algorithms");
         setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
@@ -46,8 +46,7 @@ public class Main extends JFrame {
         visualPanel = new VisualizationPanel(array);
         
         // Algorithm Selector
-        String[] algorithms = {"Bubble Sort", "Selection Sort", "Insertion Sort", "Merge Sort", "Quick Sort"};
-        algorithmSelector = new JComboBox<>(algorithms);
+        algorithmSelector = new JComboBox<>(SortAlgorithm.values());
         algorithmSelector.setFont(new Font("Arial", Font.PLAIN, 14));
         
         // Buttons
@@ -123,29 +122,19 @@ public class Main extends JFrame {
         generateButton.setEnabled(false);
         algorithmSelector.setEnabled(false);
         
-        String selectedAlgorithm = (String) algorithmSelector.getSelectedItem();
+        SortAlgorithm selectedAlgorithm = (SortAlgorithm) algorithmSelector.getSelectedItem();
         statusLabel.setText("Sorting with " + selectedAlgorithm + "...");
         
         Thread sortingThread = new Thread(() -> {
-            SortingAlgorithms sorter = new SortingAlgorithms(array, visualPanel, this);
+            // Sort a copy at full speed, then animate what the sort did to it
+            SortTrace trace = new SortTrace();
+            long start = System.nanoTime();
+            selectedAlgorithm.run(new SortingAlgorithms(array.clone(), trace));
+            double millis = (System.nanoTime() - start) / 1e6;
             
-            switch (selectedAlgorithm) {
-                case "Bubble Sort":
-                    sorter.bubbleSort();
-                    break;
-                case "Selection Sort":
-                    sorter.selectionSort();
-                    break;
-                case "Insertion Sort":
-                    sorter.insertionSort();
-                    break;
-                case "Merge Sort":
-                    sorter.mergeSort(0, array.length - 1);
-                    break;
-                case "Quick Sort":
-                    sorter.quickSort(0, array.length - 1);
-                    break;
-            }
+            SwingUtilities.invokeLater(() -> statusLabel.setText(String.format(
+                "%s sorted %d values in %.3f ms (%s) - replaying...", selectedAlgorithm, array.length, millis, trace)));
+            replay(trace);
             
             sortingComplete();
         });
@@ -153,6 +142,40 @@ public class Main extends JFrame {
         sortingThread.start();
     }
     
+    /**
+     * Plays a trace back on the displayed array, one comparison, swap or write per delay.
+     */
+    private void replay(SortTrace trace) {
+        for (int event = 0; event < trace.size(); event++) {
+            int first = trace.first(event);
+            switch (trace.type(event)) {
+                case SortTrace.COMPARE:
+                    visualPanel.setComparing(first, trace.second(event));
+                    break;
+                case SortTrace.SWAP:
+                    visualPanel.setSwapping(first, trace.second(event));
+                    break;
+                case SortTrace.WRITE:
+                    visualPanel.setSwapping(first, first);
+                    break;
+                default:
+                    visualPanel.setSorted(first);
+                    continue; // Marking a bar sorted takes no time of its own
+            }
+            trace.apply(event, array);
+            visualPanel.repaint();
+            sleep();
+        }
+    }
+    
+    private void sleep() {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+    
     private void sortingComplete() {
         SwingUtilities.invokeLater(() -> {
             visualPanel.markAllSorted();
@@ -166,10 +189,6 @@ public class Main extends JFrame {
         });
     }
     
-    public int getDelay() {
-        return delay;
-    }
-    
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> new Main());
     }
@@ -260,223 +279,3 @@ class VisualizationPanel extends JPanel {
         }
     }
 }
-
-// Sorting Algorithms Class
-class SortingAlgorithms {
-    private int[] array;
-    private VisualizationPanel panel;
-    private Main visualizer;
-    
-    public SortingAlgorithms(int[] array, VisualizationPanel panel, Main visualizer) {
-        this.array = array;
-        this.panel = panel;
-        this.visualizer = visualizer;
-    }
-    
-    private void sleep() {
-        try {
-            Thread.sleep(visualizer.getDelay());
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-    }
-    
-    // Bubble Sort
-    public void bubbleSort() {
-        int n = array.length;
-        for (int i = 0; i < n - 1; i++) {
-            for (int j = 0; j < n - i - 1; j++) {
-                panel.setComparing(j, j + 1);
-                panel.repaint();
-                sleep();
-                
-                if (array[j] > array[j + 1]) {
-                    panel.setSwapping(j, j + 1);
-                    panel.repaint();
-                    sleep();
-                    
-                    // Swap
-                    int temp = array[j];
-                    array[j] = array[j + 1];
-                    array[j + 1] = temp;
-                }
-            }
-            panel.setSorted(n - i - 1);
-        }
-        panel.setSorted(0);
-    }
-    
-    // Selection Sort
-    public void selectionSort() {
-        int n = array.length;
-        for (int i = 0; i < n - 1; i++) {
-            int minIdx = i;
-            for (int j = i + 1; j < n; j++) {
-                panel.setComparing(minIdx, j);
-                panel.repaint();
-                sleep();
-                
-                if (array[j] < array[minIdx]) {
-                    minIdx = j;
-                }
-            }
-            
-            if (minIdx != i) {
-                panel.setSwapping(i, minIdx);
-                panel.repaint();
-                sleep();
-                
-                // Swap
-                int temp = array[i];
-                array[i] = array[minIdx];
-                array[minIdx] = temp;
-            }
-            panel.setSorted(i);
-        }
-        panel.setSorted(n - 1);
-    }
-    
-    // Insertion Sort
-    public void insertionSort() {
-        int n = array.length;
-        panel.setSorted(0);
-        
-        for (int i = 1; i < n; i++) {
-            int key = array[i];
-            int j = i - 1;
-            
-            panel.setComparing(i, j);
-            panel.repaint();
-            sleep();
-            
-            while (j >= 0 && array[j] > key) {
-                panel.setSwapping(j, j + 1);
-                panel.repaint();
-                sleep();
-                
-                array[j + 1] = array[j];
-                j--;
-                
-                if (j >= 0) {
-                    panel.setComparing(j, j + 1);
-                    panel.repaint();
-                    sleep();
-                }
-            }
-            array[j + 1] = key;
-            panel.setSorted(i);
-        }
-    }
-    
-    // Merge Sort
-    public void mergeSort(int left, int right) {
-        if (left < right) {
-            int mid = left + (right - left) / 2;
-            
-            mergeSort(left, mid);
-            mergeSort(mid + 1, right);
-            merge(left, mid, right);
-        }
-    }
-    
-    private void merge(int left, int mid, int right) {
-        int n1 = mid - left + 1;
-        int n2 = right - mid;
-        
-        int[] leftArray = new int[n1];
-        int[] rightArray = new int[n2];
-        
-        for (int i = 0; i < n1; i++) {
-            leftArray[i] = array[left + i];
-        }
-        for (int j = 0; j < n2; j++) {
-            rightArray[j] = array[mid + 1 + j];
-        }
-        
-        int i = 0, j = 0, k = left;
-        
-        while (i < n1 && j < n2) {
-            panel.setComparing(left + i, mid + 1 + j);
-            panel.repaint();
-            sleep();
-            
-            if (leftArray[i] <= rightArray[j]) {
-                array[k] = leftArray[i];
-                i++;
-            } else {
-                array[k] = rightArray[j];
-                j++;
-            }
-            panel.setSwapping(k, k);
-            panel.repaint();
-            sleep();
-            k++;
-        }
-        
-        while (i < n1) {
-            array[k] = leftArray[i];
-            panel.setSwapping(k, k);
-            panel.repaint();
-            sleep();
-            i++;
-            k++;
-        }
-        
-        while (j < n2) {
-            array[k] = rightArray[j];
-            panel.setSwapping(k, k);
-            panel.repaint();
-            sleep();
-            j++;
-            k++;
-        }
-        
-        for (int idx = left; idx <= right; idx++) {
-            panel.setSorted(idx);
-        }
-    }
-    
-    // Quick Sort
-    public void quickSort(int low, int high) {
-        if (low < high) {
-            int pivotIndex = partition(low, high);
-            quickSort(low, pivotIndex - 1);
-            quickSort(pivotIndex + 1, high);
-        }
-    }
-    
-    private int partition(int low, int high) {
-        int pivot = array[high];
-        int i = low - 1;
-        
-        for (int j = low; j < high; j++) {
-            panel.setComparing(j, high);
-            panel.repaint();
-            sleep();
-            
-            if (array[j] < pivot) {
-                i++;
-                panel.setSwapping(i, j);
-                panel.repaint();
-                sleep();
-                
-                // Swap
-                int temp = array[i];
-                array[i] = array[j];
-                array[j] = temp;
-            }
-        }
-        
-        panel.setSwapping(i + 1, high);
-        panel.repaint();
-        sleep();
-        
-        // Swap pivot
-        int temp = array[i + 1];
-        array[i + 1] = array[high];
-        array[high] = temp;
-        
-        panel.setSorted(i + 1);
-        return i + 1;
-    }
-}
\ No newline at end of file
@@ -0,0 +1,63 @@
+/**
+ * The sorts offered by the visualizer, with their display names.
+ */
+public enum SortAlgorithm {
+    BUBBLE("Bubble Sort"),
+    SELECTION("Selection Sort"),
+    INSERTION("Insertion Sort"),
+    MERGE("Merge Sort"),
+    PARALLEL_MERGE("Parallel Merge Sort"),
+    QUICK("Quick Sort"),
+    INTRO("Introsort");
+    
+    private final String displayName;
+    
+    SortAlgorithm(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    /**
+     * Sorts an array in place at full speed.
+     */
+    public void sort(int[] array) {
+        run(new SortingAlgorithms(array));
+    }
+    
+    /**
+     * Sorts the array of sorter, recording into its trace if it has one.
+     */
+    public void run(SortingAlgorithms sorter) {
+        switch (this) {
+            case BUBBLE:         sorter.bubbleSort(); break;
+            case SELECTION:      sorter.selectionSort(); break;
+            case INSERTION:      sorter.insertionSort(); break;
+            case MERGE:          sorter.mergeSort(); break;
+            case PARALLEL_MERGE: sorter.parallelMergeSort(); break;
+            case QUICK:          sorter.quickSort(); break;
+            default:             sorter.introSort(); break;
+        }
+    }
+    
+    /**
+     * Looks an algorithm up by display name ("Quick Sort") or constant name ("QUICK"),
+     * ignoring case.
+     */
+    public static SortAlgorithm fromName(String name) {
+        String trimmed = name.trim();
+        for (SortAlgorithm algorithm : values()) {
+            if (algorithm.displayName.equalsIgnoreCase(trimmed) || algorithm.name().equalsIgnoreCase(trimmed)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sorting algorithm: " + name);
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,334 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Throughput and allocation baseline for the headless sorts against Arrays.sort and
+ * Arrays.parallelSort, over several input distributions and sizes.
+ *
+ * Every algorithm runs in its own JVM so the JIT profile of one sort cannot slow down
+ * the next. Each measurement copies a fixed input into a work array before every sort
+ * (the copy is not timed), warms up, then sorts for a fixed time and checks the result.
+ * Allocation is read from the per-thread counters of all live threads, so the
+ * fork/join workers of parallel sorts are included.
+ *
+ * Sizes are run in ascending order; once the growth of the last two sizes predicts that
+ * one sort would take longer than --max-op-seconds, the larger sizes of that algorithm
+ * and distribution are skipped. So are sizes that do not fit in the heap (give the JVM
+ * -Xmx, it is passed on to the children) and sizes after a StackOverflowError.
+ *
+ * Usage:
+ *   java -Xmx4g SortBenchmark [--algorithms merge,parallel_merge,quick,intro,arrays,parallel] [--sizes 100,10000,1000000]
+ *       [--distributions random,sorted,reversed,few-unique,sawtooth,organ-pipe]
+ *       [--warmup 1] [--time 2] [--max-op-seconds 10]
+ */
+public class SortBenchmark {
+    
+    private static final String ALGORITHMS = "bubble,selection,insertion,merge,parallel_merge,quick,intro,arrays,parallel";
+    private static final String SIZES = "100,1000,10000,100000,1000000,10000000,100000000";
+    private static final String DISTRIBUTIONS = "random,sorted,reversed,few-unique,sawtooth,organ-pipe";
+    private static final int FEW_UNIQUE_VALUES = 16;
+    private static final String RESULT_PREFIX = "RESULT ";
+    
+    private static long sink; // Keeps the sorted arrays observable
+    
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String algorithms = ALGORITHMS;
+        String sizes = SIZES;
+        String distributions = DISTRIBUTIONS;
+        double warmupSeconds = 1;
+        double measureSeconds = 2;
+        double maxOpSeconds = 10;
+        String algorithm = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--algorithms":
+                    algorithms = args[i + 1];
+                    break;
+                case "--sizes":
+                    sizes = args[i + 1];
+                    break;
+                case "--distributions":
+                    distributions = args[i + 1];
+                    break;
+                case "--warmup":
+                    warmupSeconds = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--time":
+                    measureSeconds = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--max-op-seconds":
+                    maxOpSeconds = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--algorithm": // Internal: run one algorithm in this JVM
+                    algorithm = args[i + 1];
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+        int[] sizeList = Arrays.stream(sizes.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).sorted().toArray();
+        String[] distributionList = distributions.split(",");
+        for (String distribution : distributionList) {
+            generate(distribution.trim(), 1); // Fails early on unknown names
+        }
+        
+        if (algorithm != null) {
+            for (String distribution : distributionList) {
+                measure(algorithm, distribution.trim(), sizeList, warmupSeconds, measureSeconds, maxOpSeconds);
+            }
+            return;
+        }
+        
+        List<String> names = new ArrayList<>();
+        for (String name : algorithms.split(",")) {
+            sorter(name.trim()); // Fails early on unknown names
+            names.add(name.trim());
+        }
+        List<String> childArgs = List.of("--sizes", sizes, "--distributions", distributions,
+            "--warmup", String.valueOf(warmupSeconds), "--time", String.valueOf(measureSeconds),
+            "--max-op-seconds", String.valueOf(maxOpSeconds));
+        
+        Map<String, List<String[]>> rowsByCase = new LinkedHashMap<>();
+        for (String distribution : distributionList) {
+            for (int size : sizeList) {
+                rowsByCase.put(distribution.trim() + "\t" + size, new ArrayList<>());
+            }
+        }
+        for (String name : names) {
+            System.err.println("Running " + displayName(name) + "...");
+            for (String[] row : fork(name, childArgs)) {
+                rowsByCase.get(row[1] + "\t" + row[2]).add(row);
+            }
+        }
+        
+        System.out.printf("%-20s %-11s %10s %14s %14s %14s %14s%n",
+            "Algorithm", "Input", "Size", "ops/s", "Melements/s", "Alloc MB/s", "Alloc B/op");
+        for (List<String[]> rows : rowsByCase.values()) {
+            for (String[] row : rows) {
+                if (!row[3].equals("ok")) {
+                    System.out.printf("%-20s %-11s %10s   %s%n", row[0], row[1], row[2], row[3]);
+                    continue;
+                }
+                double opsPerSecond = Double.parseDouble(row[4]);
+                System.out.printf(Locale.ROOT, "%-20s %-11s %10s %14.2f %14.2f %14s %14s%n", row[0], row[1], row[2],
+                    opsPerSecond, opsPerSecond * Integer.parseInt(row[2]) / 1e6, row[5], row[6]);
+            }
+        }
+    }
+    
+    /**
+     * Runs one algorithm in a child JVM with the same classpath and JVM options and
+     * returns its result rows: name, distribution, size, status, ops/s, MB/s, B/op.
+     */
+    private static List<String[]> fork(String algorithm, List<String> childArgs) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(SortBenchmark.class.getName());
+        command.addAll(childArgs);
+        command.addAll(List.of("--algorithm", algorithm));
+        
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    rows.add(line.substring(RESULT_PREFIX.length()).split("\t"));
+                }
+            }
+        }
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Benchmark of " + displayName(algorithm) + " failed");
+        }
+        return rows;
+    }
+    
+    private static void measure(String algorithm, String distribution, int[] sizes,
+            double warmupSeconds, double measureSeconds, double maxOpSeconds) {
+        Consumer<int[]> sort = sorter(algorithm);
+        String name = displayName(algorithm);
+        String stopReason = null;
+        int previousSize = 0;
+        double previousSeconds = 0;
+        double exponent = 2; // Assume quadratic growth until two sizes have been timed
+        
+        for (int size : sizes) {
+            if (stopReason == null && previousSize > 0) {
+                double projected = previousSeconds * Math.pow((double) size / previousSize, exponent);
+                if (projected > maxOpSeconds) {
+                    stopReason = String.format(Locale.ROOT, "skipped (projected %.0f s/op)", projected);
+                }
+            }
+            long needed = 4L * Integer.BYTES * size; // Input, work array and room for merge buffers
+            if (stopReason == null && needed > Runtime.getRuntime().maxMemory()) {
+                stopReason = "skipped (needs -Xmx" + ((needed >> 20) + 256) + "m)";
+            }
+            if (stopReason != null) {
+                result(name, distribution, size, stopReason, 0, 0, 0);
+                continue;
+            }
+            
+            int[] input = generate(distribution, size);
+            long checksum = 0;
+            for (int value : input) {
+                checksum += value;
+            }
+            int[] work = new int[size];
+            try {
+                // Warm up: at least one sort, more while time is left
+                long warmupEnd = System.nanoTime() + (long) (warmupSeconds * 1e9);
+                do {
+                    System.arraycopy(input, 0, work, 0, size);
+                    sort.accept(work);
+                } while (System.nanoTime() < warmupEnd);
+                
+                long allocatedBefore = allocatedBytes();
+                long measureNanos = (long) (measureSeconds * 1e9);
+                long sortNanos = 0;
+                long start = System.nanoTime();
+                int ops = 0;
+                do {
+                    System.arraycopy(input, 0, work, 0, size);
+                    long opStart = System.nanoTime();
+                    sort.accept(work);
+                    sortNanos += System.nanoTime() - opStart;
+                    sink += work[size >>> 1];
+                    ops++;
+                } while (System.nanoTime() - start < measureNanos);
+                long wallNanos = System.nanoTime() - start;
+                long allocated = allocatedBytes() - allocatedBefore;
+                
+                verify(name, work, checksum);
+                double opSeconds = sortNanos / 1e9 / ops;
+                if (previousSize > 0 && opSeconds > 1e-4) { // Tiny timings say little about growth
+                    exponent = Math.max(1, Math.log(opSeconds / previousSeconds) / Math.log((double) size / previousSize));
+                }
+                previousSize = size;
+                previousSeconds = opSeconds;
+                result(name, distribution, size, "ok", 1 / opSeconds,
+                    allocated < 0 ? -1 : allocated / (wallNanos / 1e9) / 1e6, allocated < 0 ? -1 : allocated / ops);
+            } catch (StackOverflowError e) {
+                stopReason = "failed (StackOverflowError)";
+                result(name, distribution, size, stopReason, 0, 0, 0);
+            }
+        }
+        if (sink == 42) System.out.println(sink);
+    }
+    
+    private static void result(String name, String distribution, int size, String status,
+            double opsPerSecond, double megabytesPerSecond, long bytesPerOp) {
+        System.out.printf(Locale.ROOT, "%s%s\t%s\t%d\t%s\t%.4f\t%s\t%s%n", RESULT_PREFIX, name, distribution, size, status,
+            opsPerSecond, megabytesPerSecond < 0 ? "n/a" : String.format(Locale.ROOT, "%.2f", megabytesPerSecond),
+            bytesPerOp < 0 ? "n/a" : String.valueOf(bytesPerOp));
+    }
+    
+    /**
+     * Checks that the array is in order and still holds the same values (by sum).
+     */
+    private static void verify(String name, int[] array, long checksum) {
+        long sum = 0;
+        for (int i = 0; i < array.length; i++) {
+            if (i > 0 && array[i - 1] > array[i]) {
+                throw new IllegalStateException(name + " left index " + i + " out of order");
+            }
+            sum += array[i];
+        }
+        if (sum != checksum) {
+            throw new IllegalStateException(name + " changed the values it sorted");
+        }
+    }
+    
+    /**
+     * Bytes allocated so far by all live threads, or -1 if the JVM does not count them.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) { // -1 for threads that ended meanwhile
+                total += bytes;
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Builds an input of the given distribution; the same name and size always give the same array.
+     */
+    static int[] generate(String distribution, int size) {
+        int[] array = new int[size];
+        switch (distribution) {
+            case "random":
+                SplittableRandom random = new SplittableRandom(size);
+                for (int i = 0; i < size; i++) {
+                    array[i] = random.nextInt();
+                }
+                break;
+            case "sorted":
+                for (int i = 0; i < size; i++) {
+                    array[i] = i;
+                }
+                break;
+            case "reversed":
+                for (int i = 0; i < size; i++) {
+                    array[i] = size - i;
+                }
+                break;
+            case "few-unique":
+                SplittableRandom few = new SplittableRandom(size);
+                for (int i = 0; i < size; i++) {
+                    array[i] = few.nextInt(FEW_UNIQUE_VALUES);
+                }
+                break;
+            case "sawtooth": // About sqrt(size) ascending runs of sqrt(size) values each
+                int tooth = Math.max(1, (int) Math.sqrt(size));
+                for (int i = 0; i < size; i++) {
+                    array[i] = i % tooth;
+                }
+                break;
+            case "organ-pipe": // Ascending to the middle, then descending
+                for (int i = 0; i < size; i++) {
+                    array[i] = Math.min(i, size - 1 - i);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown distribution: " + distribution);
+        }
+        return array;
+    }
+    
+    private static Consumer<int[]> sorter(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "arrays":
+                return Arrays::sort;
+            case "parallel":
+                return Arrays::parallelSort;
+            default:
+                return SortAlgorithm.fromName(name)::sort;
+        }
+    }
+    
+    private static String displayName(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "arrays":
+                return "Arrays.sort";
+            case "parallel":
+                return "Arrays.parallelSort";
+            default:
+                return SortAlgorithm.fromName(name).getDisplayName();
+        }
+    }
+}
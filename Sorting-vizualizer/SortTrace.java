@@ -0,0 +1,107 @@
+import java.util.Arrays;
+
+/**
+ * Compact record of what a sort did to its array, so it can be animated afterwards.
+ *
+ * Each event takes two ints: the type in the top three bits with the first index below
+ * them, then the second index (COMPARE, SWAP) or the value written (WRITE). Indices must
+ * be in [0, 2^29), others are rejected. SORTED marks an index that holds its final value.
+ *
+ * apply() replays the array changes of one event, so a copy of the input that gets every
+ * event applied in order ends up sorted exactly like the original.
+ */
+public class SortTrace {
+    public static final int COMPARE = 0;
+    public static final int SWAP = 1;
+    public static final int WRITE = 2;
+    public static final int SORTED = 3;
+    
+    private static final int TYPE_SHIFT = 29;
+    private static final int INDEX_MASK = (1 << TYPE_SHIFT) - 1;
+    
+    private int[] events = new int[1024];
+    private int size;
+    private final int[] counts = new int[4];
+    
+    void compare(int i, int j) {
+        add(COMPARE, i, j);
+    }
+    
+    void swap(int i, int j) {
+        add(SWAP, i, j);
+    }
+    
+    void write(int index, int value) {
+        add(WRITE, index, value);
+    }
+    
+    void sorted(int index) {
+        add(SORTED, index, 0);
+    }
+    
+    private void add(int type, int first, int second) {
+        if (first < 0 || first > INDEX_MASK) {
+            throw new IndexOutOfBoundsException("Index " + first + " does not fit a trace event");
+        }
+        if (size == events.length) {
+            events = Arrays.copyOf(events, events.length * 2);
+        }
+        events[size++] = type << TYPE_SHIFT | first;
+        events[size++] = second;
+        counts[type]++;
+    }
+    
+    /**
+     * Number of events recorded.
+     */
+    public int size() {
+        return size / 2;
+    }
+    
+    /**
+     * Number of events of one type.
+     */
+    public int count(int type) {
+        return counts[type];
+    }
+    
+    public int type(int event) {
+        return events[2 * event] >>> TYPE_SHIFT;
+    }
+    
+    public int first(int event) {
+        return events[2 * event] & INDEX_MASK;
+    }
+    
+    /**
+     * Second index of a COMPARE or SWAP, value of a WRITE.
+     */
+    public int second(int event) {
+        return events[2 * event + 1];
+    }
+    
+    /**
+     * Applies the array change of an event (SWAP and WRITE; the others change nothing).
+     */
+    public void apply(int event, int[] array) {
+        switch (type(event)) {
+            case SWAP:
+                int i = first(event);
+                int j = second(event);
+                int temp = array[i];
+                array[i] = array[j];
+                array[j] = temp;
+                break;
+            case WRITE:
+                array[first(event)] = second(event);
+                break;
+            default:
+                break;
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%d comparisons, %d swaps, %d writes", counts[COMPARE], counts[SWAP], counts[WRITE]);
+    }
+}
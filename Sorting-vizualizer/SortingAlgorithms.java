@@ -0,0 +1,581 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The sorting algorithms, headless: they sort any int[] at full speed and know nothing
+ * about the window.
+ *
+ * Given a SortTrace, every comparison, swap and write is recorded as it happens, plus
+ * the indices that reach their final place; the visualizer replays that trace at its
+ * own pace. Without one the only cost is a null check per step.
+ */
+public class SortingAlgorithms {
+    private static final int INSERTION_CUTOFF = 32;   // Runs this short are insertion sorted
+    private static final int PARALLEL_CUTOFF = 1 << 13; // Smaller sorts and merges stay on one thread
+    private static final int NINTHER_CUTOFF = 128;    // Larger ranges pick the median of nine as pivot
+    
+    private final int[] array;
+    private final SortTrace trace; // null when nothing is recorded
+    
+    public SortingAlgorithms(int[] array) {
+        this(array, null);
+    }
+    
+    public SortingAlgorithms(int[] array, SortTrace trace) {
+        this.array = array;
+        this.trace = trace;
+    }
+    
+    // Bubble Sort
+    public void bubbleSort() {
+        int n = array.length;
+        if (n == 0) return;
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = 0; j < n - i - 1; j++) {
+                if (trace != null) trace.compare(j, j + 1);
+                
+                if (array[j] > array[j + 1]) {
+                    if (trace != null) trace.swap(j, j + 1);
+                    
+                    // Swap
+                    int temp = array[j];
+                    array[j] = array[j + 1];
+                    array[j + 1] = temp;
+                }
+            }
+            if (trace != null) trace.sorted(n - i - 1);
+        }
+        if (trace != null) trace.sorted(0);
+    }
+    
+    // Selection Sort
+    public void selectionSort() {
+        int n = array.length;
+        if (n == 0) return;
+        for (int i = 0; i < n - 1; i++) {
+            int minIdx = i;
+            for (int j = i + 1; j < n; j++) {
+                if (trace != null) trace.compare(minIdx, j);
+                
+                if (array[j] < array[minIdx]) {
+                    minIdx = j;
+                }
+            }
+            
+            if (minIdx != i) {
+                if (trace != null) trace.swap(i, minIdx);
+                
+                // Swap
+                int temp = array[i];
+                array[i] = array[minIdx];
+                array[minIdx] = temp;
+            }
+            if (trace != null) trace.sorted(i);
+        }
+        if (trace != null) trace.sorted(n - 1);
+    }
+    
+    // Insertion Sort
+    public void insertionSort() {
+        int n = array.length;
+        if (n == 0) return;
+        if (trace != null) trace.sorted(0);
+        
+        for (int i = 1; i < n; i++) {
+            int key = array[i];
+            int j = i - 1;
+            
+            if (trace != null) trace.compare(i, j);
+            
+            while (j >= 0 && array[j] > key) {
+                if (trace != null) trace.write(j + 1, array[j]);
+                
+                array[j + 1] = array[j];
+                j--;
+                
+                if (j >= 0 && trace != null) {
+                    trace.compare(j, j + 1);
+                }
+            }
+            array[j + 1] = key;
+            if (trace != null) {
+                trace.write(j + 1, key);
+                trace.sorted(i);
+            }
+        }
+    }
+    
+    // Merge Sort
+    public void mergeSort() {
+        mergeSort(0, array.length - 1);
+    }
+    
+    public void mergeSort(int left, int right) {
+        if (left < right) {
+            int mid = left + (right - left) / 2;
+            
+            mergeSort(left, mid);
+            mergeSort(mid + 1, right);
+            merge(left, mid, right);
+        }
+    }
+    
+    private void merge(int left, int mid, int right) {
+        int n1 = mid - left + 1;
+        int n2 = right - mid;
+        
+        int[] leftArray = new int[n1];
+        int[] rightArray = new int[n2];
+        
+        for (int i = 0; i < n1; i++) {
+            leftArray[i] = array[left + i];
+        }
+        for (int j = 0; j < n2; j++) {
+            rightArray[j] = array[mid + 1 + j];
+        }
+        
+        int i = 0, j = 0, k = left;
+        
+        while (i < n1 && j < n2) {
+            if (trace != null) trace.compare(left + i, mid + 1 + j);
+            
+            if (leftArray[i] <= rightArray[j]) {
+                array[k] = leftArray[i];
+                i++;
+            } else {
+                array[k] = rightArray[j];
+                j++;
+            }
+            if (trace != null) trace.write(k, array[k]);
+            k++;
+        }
+        
+        while (i < n1) {
+            array[k] = leftArray[i];
+            if (trace != null) trace.write(k, array[k]);
+            i++;
+            k++;
+        }
+        
+        while (j < n2) {
+            array[k] = rightArray[j];
+            if (trace != null) trace.write(k, array[k]);
+            j++;
+            k++;
+        }
+        
+        for (int idx = left; trace != null && idx <= right; idx++) {
+            trace.sorted(idx);
+        }
+    }
+    
+    // Parallel Merge Sort
+    public void parallelMergeSort() {
+        parallelMergeSort(ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Merge sort with a single buffer, allocated once: each level merges from the array
+     * into the buffer or back, so no run is ever copied out before it is merged. Runs of
+     * up to INSERTION_CUTOFF elements are insertion sorted in place, and two halves that
+     * are already in order are copied instead of merged.
+     *
+     * Above PARALLEL_CUTOFF elements the halves are sorted as fork/join tasks on the pool
+     * and merged in parallel: the longer run is split at its middle element, the other at
+     * that value's position, and both pairs are merged into their own part of the output.
+     * With a trace, or a pool of one thread, everything runs on the calling thread.
+     */
+    public void parallelMergeSort(ForkJoinPool pool) {
+        int n = array.length;
+        if (n < 2) {
+            if (n == 1 && trace != null) trace.sorted(0);
+            return;
+        }
+        int[] buffer = array.clone();
+        if (trace != null || pool.getParallelism() == 1 || n <= PARALLEL_CUTOFF) {
+            sortInto(array, buffer, 0, n);
+        } else {
+            pool.invoke(new SortTask(array, buffer, 0, n));
+        }
+    }
+    
+    /**
+     * Sorts dst[lo, hi) using src as scratch; both must hold the same values there.
+     */
+    private void sortInto(int[] dst, int[] src, int lo, int hi) {
+        if (hi - lo <= INSERTION_CUTOFF) {
+            insertionSort(dst, lo, hi);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        sortInto(src, dst, lo, mid);
+        sortInto(src, dst, mid, hi);
+        mergeRuns(src, lo, mid, mid, hi, dst, lo);
+    }
+    
+    private void insertionSort(int[] a, int lo, int hi) {
+        boolean recording = trace != null && a == array;
+        for (int i = lo + 1; i < hi; i++) {
+            int key = a[i];
+            int j = i - 1;
+            if (recording) trace.compare(i, j);
+            
+            while (j >= lo && a[j] > key) {
+                if (recording) trace.write(j + 1, a[j]);
+                a[j + 1] = a[j];
+                j--;
+                if (j >= lo && recording) trace.compare(j, j + 1);
+            }
+            a[j + 1] = key;
+            if (recording) trace.write(j + 1, key);
+        }
+        if (recording) markSorted(lo, hi);
+    }
+    
+    /**
+     * Merges src[lo1, hi1) and src[lo2, hi2) into dst from index k on.
+     */
+    private void mergeRuns(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int k) {
+        boolean recording = trace != null && dst == array;
+        int start = k;
+        if (lo1 < hi1 && lo2 < hi2 && src[hi1 - 1] > src[lo2]) { // Otherwise the runs are already in order
+            while (lo1 < hi1 && lo2 < hi2) {
+                if (recording) trace.compare(lo1, lo2);
+                dst[k] = src[lo1] <= src[lo2] ? src[lo1++] : src[lo2++];
+                if (recording) trace.write(k, dst[k]);
+                k++;
+            }
+        }
+        for (; recording && lo1 < hi1; lo1++, k++) {
+            dst[k] = src[lo1];
+            trace.write(k, dst[k]);
+        }
+        for (; recording && lo2 < hi2; lo2++, k++) {
+            dst[k] = src[lo2];
+            trace.write(k, dst[k]);
+        }
+        System.arraycopy(src, lo1, dst, k, hi1 - lo1);
+        System.arraycopy(src, lo2, dst, k + hi1 - lo1, hi2 - lo2);
+        if (recording) markSorted(start, k);
+    }
+    
+    private void markSorted(int lo, int hi) {
+        for (int i = lo; i < hi; i++) {
+            trace.sorted(i);
+        }
+    }
+    
+    /**
+     * Sorts dst[lo, hi) like sortInto, forking both halves and merging in parallel.
+     */
+    private class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final int[] dst;
+        private final int[] src;
+        private final int lo;
+        private final int hi;
+        
+        SortTask(int[] dst, int[] src, int lo, int hi) {
+            this.dst = dst;
+            this.src = src;
+            this.lo = lo;
+            this.hi = hi;
+        }
+        
+        @Override
+        protected void compute() {
+            if (hi - lo <= PARALLEL_CUTOFF) {
+                sortInto(dst, src, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask(src, dst, lo, mid), new SortTask(src, dst, mid, hi));
+            new MergeTask(src, lo, mid, mid, hi, dst, lo).compute();
+        }
+    }
+    
+    /**
+     * Merges two sorted runs of src into dst from index k on, splitting large merges
+     * into two independent halves.
+     */
+    private class MergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final int[] src;
+        private final int lo1, hi1, lo2, hi2;
+        private final int[] dst;
+        private final int k;
+        
+        MergeTask(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int k) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.k = k;
+        }
+        
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1;
+            int n2 = hi2 - lo2;
+            if (n1 + n2 <= PARALLEL_CUTOFF || n1 == 0 || n2 == 0 || src[hi1 - 1] <= src[lo2]) {
+                mergeRuns(src, lo1, hi1, lo2, hi2, dst, k);
+                return;
+            }
+            // Everything before the split points is <= everything after them
+            int m1, m2;
+            if (n1 >= n2) {
+                m1 = (lo1 + hi1) >>> 1;
+                m2 = firstAtLeast(src, lo2, hi2, src[m1]);
+            } else {
+                m2 = (lo2 + hi2) >>> 1;
+                m1 = firstAtLeast(src, lo1, hi1, src[m2]);
+            }
+            int km = k + (m1 - lo1) + (m2 - lo2);
+            invokeAll(new MergeTask(src, lo1, m1, lo2, m2, dst, k), new MergeTask(src, m1, hi1, m2, hi2, dst, km));
+        }
+    }
+    
+    /**
+     * Index of the first element of the sorted range a[lo, hi) that is >= value (hi if none).
+     */
+    private static int firstAtLeast(int[] a, int lo, int hi, int value) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+    
+    // Quick Sort
+    public void quickSort() {
+        quickSort(0, array.length - 1);
+    }
+    
+    public void quickSort(int low, int high) {
+        if (low < high) {
+            int pivotIndex = partition(low, high);
+            quickSort(low, pivotIndex - 1);
+            quickSort(pivotIndex + 1, high);
+        }
+    }
+    
+    private int partition(int low, int high) {
+        int pivot = array[high];
+        int i = low - 1;
+        
+        for (int j = low; j < high; j++) {
+            if (trace != null) trace.compare(j, high);
+            
+            if (array[j] < pivot) {
+                i++;
+                if (trace != null) trace.swap(i, j);
+                
+                // Swap
+                int temp = array[i];
+                array[i] = array[j];
+                array[j] = temp;
+            }
+        }
+        
+        if (trace != null) trace.swap(i + 1, high);
+        
+        // Swap pivot
+        int temp = array[i + 1];
+        array[i + 1] = array[high];
+        array[high] = temp;
+        
+        if (trace != null) trace.sorted(i + 1);
+        return i + 1;
+    }
+    
+    // Introsort
+    public void introSort() {
+        introSort(ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Quicksort that cannot go quadratic: the pivot is the median of three elements (of
+     * nine on large ranges), the partition stops on equal keys so duplicates split
+     * evenly, and after 2 log2(n) levels a range is heapsorted instead. Only the smaller
+     * side is recursed into, so the stack stays O(log n); ranges of up to
+     * INSERTION_CUTOFF elements are insertion sorted.
+     *
+     * Above PARALLEL_CUTOFF elements the smaller side of each partition is forked on the
+     * pool. With a trace, or a pool of one thread, everything runs on the calling thread.
+     */
+    public void introSort(ForkJoinPool pool) {
+        int n = array.length;
+        if (n < 2) {
+            if (n == 1 && trace != null) trace.sorted(0);
+            return;
+        }
+        int depthLimit = 2 * (31 - Integer.numberOfLeadingZeros(n));
+        if (trace != null || pool.getParallelism() == 1 || n <= PARALLEL_CUTOFF) {
+            introSort(0, n, depthLimit);
+        } else {
+            pool.invoke(new QuickTask(0, n, depthLimit));
+        }
+    }
+    
+    /**
+     * Sorts array[lo, hi), falling back to heapsort after depth more partitions.
+     */
+    private void introSort(int lo, int hi, int depth) {
+        while (hi - lo > INSERTION_CUTOFF) {
+            if (depth-- == 0) {
+                heapSort(lo, hi);
+                return;
+            }
+            int p = pivotPartition(lo, hi);
+            if (p - lo < hi - p - 1) {
+                introSort(lo, p, depth);
+                lo = p + 1;
+            } else {
+                introSort(p + 1, hi, depth);
+                hi = p;
+            }
+        }
+        insertionSort(array, lo, hi);
+    }
+    
+    /**
+     * Moves the chosen pivot to lo and partitions array[lo, hi) around it; returns the
+     * pivot's final index.
+     */
+    private int pivotPartition(int lo, int hi) {
+        int n = hi - lo;
+        int mid = lo + n / 2;
+        int median;
+        if (n > NINTHER_CUTOFF) {
+            int step = n / 8;
+            median = medianOf3(medianOf3(lo, lo + step, lo + 2 * step),
+                medianOf3(mid - step, mid, mid + step),
+                medianOf3(hi - 1 - 2 * step, hi - 1 - step, hi - 1));
+        } else {
+            median = medianOf3(lo, mid, hi - 1);
+        }
+        swap(lo, median);
+        
+        int pivot = array[lo];
+        int i = lo;
+        int j = hi;
+        while (true) {
+            do {
+                i++;
+                if (trace != null) trace.compare(i, lo);
+            } while (array[i] < pivot); // Another sample >= pivot is still in range
+            do {
+                j--;
+                if (trace != null) trace.compare(j, lo);
+            } while (array[j] > pivot); // Stops at lo at the latest
+            if (i >= j) break;
+            swap(i, j);
+        }
+        swap(lo, j);
+        if (trace != null) trace.sorted(j);
+        return j;
+    }
+    
+    private int medianOf3(int a, int b, int c) {
+        if (trace != null) {
+            trace.compare(a, b);
+            trace.compare(b, c);
+        }
+        if (array[a] < array[b]) {
+            return array[b] < array[c] ? b : array[a] < array[c] ? c : a;
+        }
+        return array[a] < array[c] ? a : array[b] < array[c] ? c : b;
+    }
+    
+    private void heapSort(int lo, int hi) {
+        int n = hi - lo;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(lo, i, n);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            swap(lo, lo + end);
+            if (trace != null) trace.sorted(lo + end);
+            siftDown(lo, 0, end);
+        }
+        if (trace != null) trace.sorted(lo);
+    }
+    
+    /**
+     * Restores the max-heap below node i of the heap stored in array[lo, lo + n).
+     */
+    private void siftDown(int lo, int i, int n) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) return;
+            if (child + 1 < n) {
+                if (trace != null) trace.compare(lo + child, lo + child + 1);
+                if (array[lo + child + 1] > array[lo + child]) child++;
+            }
+            if (trace != null) trace.compare(lo + i, lo + child);
+            if (array[lo + i] >= array[lo + child]) return;
+            swap(lo + i, lo + child);
+            i = child;
+        }
+    }
+    
+    private void swap(int i, int j) {
+        if (trace != null) trace.swap(i, j);
+        int temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+    }
+    
+    /**
+     * Introsorts array[lo, hi), forking the smaller side of each partition until the
+     * remaining range is small enough to finish on this thread.
+     */
+    private class QuickTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final int lo;
+        private final int hi;
+        private final int depth;
+        
+        QuickTask(int lo, int hi, int depth) {
+            this.lo = lo;
+            this.hi = hi;
+            this.depth = depth;
+        }
+        
+        @Override
+        protected void compute() {
+            int lo = this.lo;
+            int hi = this.hi;
+            int depth = this.depth;
+            List<QuickTask> forked = new ArrayList<>();
+            while (hi - lo > PARALLEL_CUTOFF && depth > 0) {
+                int p = pivotPartition(lo, hi);
+                depth--;
+                QuickTask smaller;
+                if (p - lo < hi - p - 1) {
+                    smaller = new QuickTask(lo, p, depth);
+                    lo = p + 1;
+                } else {
+                    smaller = new QuickTask(p + 1, hi, depth);
+                    hi = p;
+                }
+                smaller.fork();
+                forked.add(smaller);
+            }
+            introSort(lo, hi, depth);
+            for (QuickTask task : forked) {
+                task.join();
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless batch runner: generates seeded random mazes, runs the selected algorithms
+ * on each of them in parallel and streams one CSV row per query.
+ *
+ * Usage:
+ *   java BatchRunner [--maps N] [--size S] [--seed X] [--queries Q]
+ *                    [--algorithms "A*,Dijkstra,..."] [--threads T] [--out results.csv]
+ *                    [--grid file.grid] [--save-dir DIR] [--prune-dead-ends true]
+ *                    [--goal-bounds file.bounds] [--connectivity 4|8|8-cut]
+ *                    [--generator random|backtracker|kruskal|wilson|rooms|caves]
+ *
+ * Map i uses seed X + i, so any row can be reproduced on its own. The default "random"
+ * generator is the visualizer's (MazeGenerator); the others are the MapGenerator styles.
+ * The first query of every map uses the default start and end (the visualizer's spots,
+ * or the generator's); further queries pick random open cells. Path costs are compared
+ * with the optimum: BFS in four directions, or Dijkstra with the diagonals of
+ * --connectivity (which A*, Dijkstra and Theta* follow).
+ *
+ * --save-dir writes every generated map as DIR/map-<i>.grid (see GridFile); --grid runs
+ * the queries on one saved grid instead of generating mazes, e.g. to replay a slow case.
+ * With --grid, --goal-bounds lets A* prune with goal bounds, loaded from the file or
+ * computed and saved there first (see GoalBounds).
+ *
+ * HDA* searches with the processors split between the maps running at once, so with
+ * the default --threads each query gets one worker; use --threads 1 to time HDA* on
+ * every core without the other maps competing for them.
+ */
+public class BatchRunner {
+    
+    private static final String CSV_HEADER = "map,seed,size,query,startX,startY,endX,endY,"
+        + "algorithm,success,timeMicros,expansions,pathLength,optimalLength,optimalityGap";
+    
+    private int maps = 100;
+    private int size = 64;
+    private long seed = 1;
+    private int queries = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private String out = "-";
+    private Path gridPath;
+    private Path saveDir;
+    private GridFile gridFile;
+    private boolean pruneDeadEnds;
+    private Path goalBoundsPath;
+    private GoalBounds goalBounds;
+    private Connectivity connectivity = Connectivity.FOUR;
+    private MapGenerator.Style generator; // null for MazeGenerator's random walls
+    private List<SearchAlgorithm> algorithms = Arrays.asList(SearchAlgorithm.values());
+    
+    // Per-algorithm totals for the summary printed at the end
+    private final Map<SearchAlgorithm, long[]> totals = new EnumMap<>(SearchAlgorithm.class);
+    
+    public static void main(String[] args) throws Exception {
+        BatchRunner runner = new BatchRunner();
+        try {
+            runner.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("Usage: java BatchRunner [--maps N] [--size S] [--seed X] [--queries Q]"
+                + " [--algorithms \"A*,Dijkstra\"] [--threads T] [--out file.csv]"
+                + " [--grid file.grid] [--save-dir DIR] [--prune-dead-ends true] [--goal-bounds file.bounds]"
+                + " [--connectivity 4|8|8-cut] [--generator random|backtracker|kruskal|wilson|rooms|caves]");
+            System.exit(1);
+        }
+        runner.run();
+    }
+    
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--maps":       maps = Integer.parseInt(value); break;
+                case "--size":       size = Integer.parseInt(value); break;
+                case "--seed":       seed = Long.parseLong(value); break;
+                case "--queries":    queries = Integer.parseInt(value); break;
+                case "--threads":    threads = Integer.parseInt(value); break;
+                case "--out":        out = value; break;
+                case "--grid":       gridPath = Paths.get(value); break;
+                case "--save-dir":   saveDir = Paths.get(value); break;
+                case "--prune-dead-ends": pruneDeadEnds = Boolean.parseBoolean(value); break;
+                case "--goal-bounds": goalBoundsPath = Paths.get(value); break;
+                case "--connectivity": connectivity = Connectivity.fromName(value); break;
+                case "--generator":
+                    generator = value.equalsIgnoreCase("random") ? null : MapGenerator.Style.fromName(value);
+                    break;
+                case "--algorithms":
+                    algorithms = new ArrayList<>();
+                    for (String name : value.split(",")) {
+                        algorithms.add(SearchAlgorithm.fromName(name));
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        // The default start (5,5) and end (size-6,size-6) must be distinct cells
+        if (gridPath == null && size < 12) {
+            throw new IllegalArgumentException("Grid size must be at least 12");
+        }
+        if (gridPath == null && generator != null && size < MapGenerator.MIN_SIZE) {
+            throw new IllegalArgumentException("--generator needs a grid size of at least " + MapGenerator.MIN_SIZE);
+        }
+        // Bounds take quadratic time to compute, so they are only for a fixed map
+        if (goalBoundsPath != null && gridPath == null) {
+            throw new IllegalArgumentException("--goal-bounds needs --grid");
+        }
+        if (maps < 1 || queries < 1 || threads < 1) {
+            throw new IllegalArgumentException("--maps, --queries and --threads must be positive");
+        }
+    }
+    
+    private void run() throws Exception {
+        if (gridPath != null) {
+            gridFile = GridFile.load(gridPath);
+            size = gridFile.getGridSize();
+            maps = 1;
+            if (goalBoundsPath != null) {
+                long begin = System.nanoTime();
+                goalBounds = GoalBounds.loadOrCompute(goalBoundsPath, gridFile.toGrid(), size, threads);
+                System.err.printf("Goal bounds ready in %d ms%n", (System.nanoTime() - begin) / 1_000_000);
+            }
+        }
+        if (saveDir != null) {
+            Files.createDirectories(saveDir);
+        }
+        
+        for (SearchAlgorithm algorithm : algorithms) {
+            totals.put(algorithm, new long[4]); // queries, solved, micros, expansions
+        }
+        
+        PrintWriter writer = out.equals("-")
+            ? new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+            : new PrintWriter(new BufferedWriter(new FileWriter(out, StandardCharsets.UTF_8)));
+        writer.println(CSV_HEADER);
+        
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicInteger done = new AtomicInteger();
+        long startNanos = System.nanoTime();
+        
+        List<Future<?>> futures = new ArrayList<>();
+        for (int map = 0; map < maps; map++) {
+            int mapIndex = map;
+            futures.add(pool.submit(() -> {
+                String rows = runMap(mapIndex);
+                synchronized (writer) {
+                    writer.print(rows);
+                }
+                int finished = done.incrementAndGet();
+                if (finished % 1000 == 0) {
+                    System.err.println(finished + "/" + maps + " maps");
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        writer.flush();
+        if (!out.equals("-")) {
+            writer.close();
+        }
+        
+        printSummary((System.nanoTime() - startNanos) / 1_000_000);
+    }
+    
+    /**
+     * Generates (or loads) one map, runs every query with every algorithm and returns the CSV rows.
+     */
+    private String runMap(int mapIndex) throws IOException {
+        long mapSeed = seed + mapIndex;
+        Random random = new Random(mapSeed);
+        
+        Node[][] grid;
+        Node defaultStart;
+        Node defaultEnd;
+        if (gridFile != null) {
+            grid = gridFile.toGrid();
+            defaultStart = grid[gridFile.getStartX()][gridFile.getStartY()];
+            defaultEnd = grid[gridFile.getEndX()][gridFile.getEndY()];
+        } else if (generator != null) {
+            GridFile file = MapGenerator.generate(generator, size, mapSeed);
+            grid = file.toGrid();
+            defaultStart = grid[file.getStartX()][file.getStartY()];
+            defaultEnd = grid[file.getEndX()][file.getEndY()];
+            if (saveDir != null) {
+                file.save(saveDir.resolve("map-" + mapIndex + ".grid"));
+            }
+        } else {
+            grid = MazeGenerator.createGrid(size);
+            defaultStart = grid[5][5];
+            defaultEnd = grid[size - 6][size - 6];
+            new MazeGenerator(grid, size, defaultStart, defaultEnd, random).generate();
+            if (saveDir != null) {
+                GridFile file = GridFile.fromGrid(grid, size, defaultStart, defaultEnd);
+                file.setSeed(mapSeed);
+                file.save(saveDir.resolve("map-" + mapIndex + ".grid"));
+            }
+        }
+        
+        StringBuilder rows = new StringBuilder();
+        try (PathfindingAlgorithm pathfinder = new PathfindingAlgorithm(grid, size)) {
+            pathfinder.setDeadEndPruning(pruneDeadEnds);
+            pathfinder.setGoalBounds(goalBounds);
+            pathfinder.setConnectivity(connectivity);
+            if (algorithms.contains(SearchAlgorithm.HDA_STAR)) {
+                // Maps already run in parallel: HDA* only gets its share of the processors
+                int running = Math.min(threads, maps);
+                pathfinder.setParallelism(Math.max(1, Runtime.getRuntime().availableProcessors() / running));
+            }
+            if (algorithms.contains(SearchAlgorithm.SUBGOAL_GRAPH)) {
+                // Preprocessing, like the goal bounds: not part of any query's time
+                pathfinder.setSubgoalGraph(new SubgoalGraph(grid, size));
+            }
+            for (int query = 0; query < queries; query++) {
+                Node start = query == 0 ? defaultStart : randomOpenCell(grid, random);
+                Node end = query == 0 ? defaultEnd : randomOpenCell(grid, random);
+                
+                PathfindingResult reference = connectivity == Connectivity.FOUR
+                    ? pathfinder.bfs(start, end) : pathfinder.dijkstra(start, end);
+                
+                for (SearchAlgorithm algorithm : algorithms) {
+                    long begin = System.nanoTime();
+                    PathfindingResult result = algorithm.run(pathfinder, start, end);
+                    long micros = (System.nanoTime() - begin) / 1000;
+                    
+                    String gap = "";
+                    if (result.isSuccess() && reference.isSuccess() && reference.getCost() > 0) {
+                        double ratio = (result.getCost() - reference.getCost()) / reference.getCost();
+                        gap = String.format(Locale.ROOT, "%.4f", ratio);
+                    }
+                    
+                    rows.append(mapIndex).append(',').append(mapSeed).append(',').append(size).append(',')
+                        .append(query).append(',')
+                        .append(start.getX()).append(',').append(start.getY()).append(',')
+                        .append(end.getX()).append(',').append(end.getY()).append(',')
+                        .append('"').append(algorithm.getDisplayName()).append('"').append(',')
+                        .append(result.isSuccess()).append(',').append(micros).append(',')
+                        .append(result.getNodesVisited()).append(',').append(result.getPathLength()).append(',')
+                        .append(reference.isSuccess() ? reference.getPathLength() : -1).append(',')
+                        .append(gap).append('\n');
+                    
+                    long[] total = totals.get(algorithm);
+                    synchronized (total) {
+                        total[0]++;
+                        total[1] += result.isSuccess() ? 1 : 0;
+                        total[2] += micros;
+                        total[3] += result.getNodesVisited();
+                    }
+                }
+            }
+        }
+        return rows.toString();
+    }
+    
+    private Node randomOpenCell(Node[][] grid, Random random) {
+        while (true) {
+            Node node = grid[random.nextInt(size)][random.nextInt(size)];
+            if (node.isWalkable()) {
+                return node;
+            }
+        }
+    }
+    
+    private void printSummary(long elapsedMillis) {
+        System.err.printf("%d maps x %d queries on %dx%d grids in %d ms%n", maps, queries, size, size, elapsedMillis);
+        System.err.printf("%-20s %10s %12s %14s%n", "Algorithm", "Solved", "Avg time us", "Avg expansions");
+        for (SearchAlgorithm algorithm : algorithms) {
+            long[] total = totals.get(algorithm);
+            System.err.printf("%-20s %10d %12.1f %14.1f%n", algorithm.getDisplayName(), total[1],
+                (double) total[2] / total[0], (double) total[3] / total[0]);
+        }
+    }
+}
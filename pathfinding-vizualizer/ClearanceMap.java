@@ -0,0 +1,123 @@
+/**
+ * Clearance values for planning with agents larger than one cell.
+ *
+ * The clearance of a cell is the side of the largest wall-free square whose top-left
+ * corner is that cell (0 on walls). An agent of size k x k anchored at its top-left
+ * cell fits wherever the clearance is at least k, so a search checks one integer per
+ * cell instead of k² cells, and one map serves agents of every size.
+ *
+ * Values are computed like a brushfire spreading from the walls and the grid border
+ * towards the top-left:
+ *   clearance(x, y) = 1 + min(clearance(x+1, y), clearance(x, y+1), clearance(x+1, y+1))
+ * When a single wall is drawn or erased, update() re-propagates from that cell and
+ * only touches the cells whose clearance actually changes (plus their neighbors).
+ */
+public class ClearanceMap {
+    private final Node[][] grid;
+    private final int gridSize;
+    private final int[] clearance; // indexed by x * gridSize + y
+    
+    // Worklist for incremental updates
+    private final int[] queue;
+    private final boolean[] queued;
+    
+    public ClearanceMap(Node[][] grid, int gridSize) {
+        this.grid = grid;
+        this.gridSize = gridSize;
+        this.clearance = new int[gridSize * gridSize];
+        this.queue = new int[gridSize * gridSize];
+        this.queued = new boolean[gridSize * gridSize];
+        recompute();
+    }
+    
+    private ClearanceMap(ClearanceMap other) {
+        this.grid = other.grid;
+        this.gridSize = other.gridSize;
+        this.clearance = other.clearance.clone();
+        this.queue = new int[other.queue.length];
+        this.queued = new boolean[other.queued.length];
+    }
+    
+    /**
+     * Snapshot of the current values, e.g. for a search running on another thread
+     * while walls are still being edited.
+     */
+    public ClearanceMap copy() {
+        return new ClearanceMap(this);
+    }
+    
+    public int getGridSize() {
+        return gridSize;
+    }
+    
+    public int get(int x, int y) {
+        return clearance[x * gridSize + y];
+    }
+    
+    /**
+     * Whether an agent of the given size can stand with its top-left corner at (x, y).
+     */
+    public boolean fits(int x, int y, int agentSize) {
+        return clearance[x * gridSize + y] >= agentSize;
+    }
+    
+    /**
+     * Recomputes every cell, bottom-right to top-left (after bulk changes such as a new maze).
+     */
+    public void recompute() {
+        for (int x = gridSize - 1; x >= 0; x--) {
+            for (int y = gridSize - 1; y >= 0; y--) {
+                clearance[x * gridSize + y] = compute(x, y);
+            }
+        }
+    }
+    
+    /**
+     * Brings the map up to date after the wall state of (x, y) changed.
+     */
+    public void update(int x, int y) {
+        int head = 0;
+        int size = 0;
+        int start = x * gridSize + y;
+        queue[0] = start;
+        queued[start] = true;
+        size++;
+        
+        while (size > 0) {
+            int cell = queue[head];
+            head = (head + 1) % queue.length;
+            size--;
+            queued[cell] = false;
+            
+            int cx = cell / gridSize;
+            int cy = cell % gridSize;
+            int value = compute(cx, cy);
+            if (value == clearance[cell] && cell != start) continue;
+            clearance[cell] = value;
+            
+            // Only cells above and to the left depend on this one
+            for (int dx = 0; dx <= 1; dx++) {
+                for (int dy = 0; dy <= 1; dy++) {
+                    int nx = cx - dx;
+                    int ny = cy - dy;
+                    if ((dx | dy) == 0 || nx < 0 || ny < 0) continue;
+                    int neighbor = nx * gridSize + ny;
+                    if (!queued[neighbor]) {
+                        queued[neighbor] = true;
+                        queue[(head + size) % queue.length] = neighbor;
+                        size++;
+                    }
+                }
+            }
+        }
+    }
+    
+    private int compute(int x, int y) {
+        if (!grid[x][y].isWalkable()) return 0;
+        return 1 + Math.min(at(x + 1, y), Math.min(at(x, y + 1), at(x + 1, y + 1)));
+    }
+    
+    private int at(int x, int y) {
+        return x < gridSize && y < gridSize ? clearance[x * gridSize + y] : 0;
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Moves a search may make from a cell: the four orthogonal steps, or all eight with
+ * diagonals costing √2. The two 8-connected variants differ in how diagonals pass
+ * walls: EIGHT needs both orthogonal cells beside the move to be open (no cutting
+ * across a wall corner), EIGHT_CUT_CORNERS only needs one. Squeezing between two
+ * diagonal walls is never allowed.
+ */
+public enum Connectivity {
+    FOUR("4-way"),
+    EIGHT("8-way"),
+    EIGHT_CUT_CORNERS("8-way, cut corners");
+    
+    private final String displayName;
+    
+    Connectivity(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    public boolean hasDiagonals() {
+        return this != FOUR;
+    }
+    
+    /**
+     * Whether a diagonal move is allowed given the two orthogonal cells beside it.
+     */
+    public boolean allowsDiagonal(boolean firstSideOpen, boolean secondSideOpen) {
+        switch (this) {
+            case EIGHT:             return firstSideOpen && secondSideOpen;
+            case EIGHT_CUT_CORNERS: return firstSideOpen || secondSideOpen;
+            default:                return false;
+        }
+    }
+    
+    /**
+     * Looks a connectivity up by number ("4", "8", "8-cut"), display name or constant
+     * name, ignoring case.
+     */
+    public static Connectivity fromName(String name) {
+        String trimmed = name.trim();
+        switch (trimmed) {
+            case "4":     return FOUR;
+            case "8":     return EIGHT;
+            case "8-cut": return EIGHT_CUT_CORNERS;
+            default:
+                for (Connectivity connectivity : values()) {
+                    if (connectivity.displayName.equalsIgnoreCase(trimmed)
+                            || connectivity.name().equalsIgnoreCase(trimmed)) {
+                        return connectivity;
+                    }
+                }
+                throw new IllegalArgumentException("Unknown connectivity: " + name);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
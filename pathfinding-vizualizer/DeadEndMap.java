@@ -0,0 +1,175 @@
+import java.util.*;
+
+/**
+ * Dead-end regions of a grid: areas connected to the rest of the map through a single
+ * cell (the end of a corridor, a room with one door, an alcove). A shortest path
+ * between two cells outside such a region never enters it, since it would have to
+ * leave through the same cell again, so searches can skip the region unless the
+ * start or the end lies inside it.
+ *
+ * The regions are found in one pass with Tarjan's articulation point search: when the
+ * DFS child v of a cell a finishes with low(v) >= order(a), the subtree of v is only
+ * reachable through a. Subtrees are contiguous in DFS order, so every region is an
+ * interval [from, to) of discovery indices and the regions nest. Each cell stores the
+ * innermost region containing it; a query skips the cell if neither the start nor the
+ * end falls into that interval (any larger region containing neither would contain
+ * this one too).
+ *
+ * The map is computed for the walls at construction time. It stays correct for agents
+ * larger than a cell (their graph is a subgraph of this one), but has to be rebuilt
+ * whenever a wall changes.
+ */
+public class DeadEndMap {
+    private static final int NONE = -1;
+    
+    // Directions: up, right, down, left (same order as the searches)
+    private static final int[][] DIRECTIONS = {{0, -1}, {1, 0}, {0, 1}, {-1, 0}};
+    
+    private final int gridSize;
+    private final int[] order;       // DFS discovery index (NONE on walls), indexed by x * gridSize + y
+    private final int[] regionFrom;  // Innermost dead-end region of each cell: [from, to) in DFS order
+    private final int[] regionTo;
+    private int deadEndCells;
+    
+    public DeadEndMap(Node[][] grid, int gridSize) {
+        this.gridSize = gridSize;
+        int cells = gridSize * gridSize;
+        this.order = new int[cells];
+        this.regionFrom = new int[cells];
+        this.regionTo = new int[cells];
+        Arrays.fill(order, NONE);
+        Arrays.fill(regionFrom, NONE);
+        compute(grid);
+    }
+    
+    public int getGridSize() {
+        return gridSize;
+    }
+    
+    /**
+     * Number of cells inside at least one dead-end region.
+     */
+    public int getDeadEndCells() {
+        return deadEndCells;
+    }
+    
+    /**
+     * Whether (x, y) lies in a dead-end region (for some query, it can be skipped).
+     */
+    public boolean isDeadEnd(int x, int y) {
+        return regionFrom[x * gridSize + y] != NONE;
+    }
+    
+    /**
+     * Whether a search from startCell to endCell can ignore the given cell.
+     */
+    public boolean canSkip(int cell, int startCell, int endCell) {
+        int from = regionFrom[cell];
+        if (from == NONE) return false;
+        int to = regionTo[cell];
+        int start = order[startCell];
+        int end = order[endCell];
+        return (start < from || start >= to) && (end < from || end >= to);
+    }
+    
+    /**
+     * Iterative DFS (grids are too large for recursion) computing discovery order and
+     * low-links, registering a region each time a child subtree turns out to be cut
+     * off by its parent.
+     */
+    private void compute(Node[][] grid) {
+        int cells = gridSize * gridSize;
+        boolean[] open = new boolean[cells];
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                open[x * gridSize + y] = grid[x][y].isWalkable();
+            }
+        }
+        int[] low = new int[cells];
+        int[] cellAt = new int[cells];     // Inverse of order
+        int[] stack = new int[cells];
+        int[] nextDirection = new int[cells];
+        int[] nextFree = new int[cells + 1]; // Skips cells already given an inner region
+        for (int i = 0; i <= cells; i++) {
+            nextFree[i] = i;
+        }
+        List<int[]> rootRegions = new ArrayList<>();
+        int counter = 0;
+        
+        for (int root = 0; root < cells; root++) {
+            if (order[root] != NONE || !open[root]) continue;
+            
+            order[root] = low[root] = counter;
+            cellAt[counter++] = root;
+            stack[0] = root;
+            nextDirection[0] = 0;
+            int top = 1;
+            rootRegions.clear();
+            
+            while (top > 0) {
+                int cell = stack[top - 1];
+                if (nextDirection[top - 1] < DIRECTIONS.length) {
+                    int[] dir = DIRECTIONS[nextDirection[top - 1]++];
+                    int x = cell / gridSize + dir[0];
+                    int y = cell % gridSize + dir[1];
+                    if (x < 0 || x >= gridSize || y < 0 || y >= gridSize) continue;
+                    
+                    int neighbor = x * gridSize + y;
+                    if (!open[neighbor]) continue;
+                    if (order[neighbor] == NONE) {
+                        order[neighbor] = low[neighbor] = counter;
+                        cellAt[counter++] = neighbor;
+                        stack[top] = neighbor;
+                        nextDirection[top] = 0;
+                        top++;
+                    } else {
+                        low[cell] = Math.min(low[cell], order[neighbor]);
+                    }
+                    continue;
+                }
+                
+                // All neighbors done: report to the parent
+                top--;
+                if (top == 0) break;
+                int parent = stack[top - 1];
+                low[parent] = Math.min(low[parent], low[cell]);
+                if (low[cell] >= order[parent]) {
+                    if (parent == root) {
+                        // The root only separates its subtrees if it has more than one
+                        rootRegions.add(new int[] {order[cell], counter});
+                    } else {
+                        assignRegion(order[cell], counter, cellAt, nextFree);
+                    }
+                }
+            }
+            
+            if (rootRegions.size() > 1) {
+                for (int[] region : rootRegions) {
+                    assignRegion(region[0], region[1], cellAt, nextFree);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Gives the cells of [from, to) this region unless an inner one already claimed them.
+     * Inner regions finish first, so the first assignment is the innermost.
+     */
+    private void assignRegion(int from, int to, int[] cellAt, int[] nextFree) {
+        for (int i = find(nextFree, from); i < to; i = find(nextFree, i)) {
+            int cell = cellAt[i];
+            regionFrom[cell] = from;
+            regionTo[cell] = to;
+            deadEndCells++;
+            nextFree[i] = i + 1;
+        }
+    }
+    
+    private static int find(int[] nextFree, int i) {
+        while (nextFree[i] != i) {
+            nextFree[i] = nextFree[nextFree[i]];
+            i = nextFree[i];
+        }
+        return i;
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Whole-grid passes over a wall mask: the two-pass Manhattan distance transform
+ * (distance from every cell to the nearest wall) and bitwise mask operations.
+ *
+ * Masks and distance fields are flat arrays indexed like the search context
+ * (x * gridSize + y), so a row of fixed x is contiguous.
+ *
+ * This class is the portable scalar implementation. When the JDK provides the
+ * jdk.incubator.vector module, create() returns VectorDistanceTransform instead
+ * (compiled separately from simd/, see compile_and_run.sh); both produce identical
+ * results.
+ */
+public class DistanceTransform {
+    
+    // Distance of cells that cannot reach any wall; small enough that +1 cannot overflow
+    public static final int INFINITY = Integer.MAX_VALUE / 2;
+    
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_IMPLEMENTATION = "VectorDistanceTransform";
+    
+    /**
+     * Best implementation available in this JVM.
+     */
+    public static DistanceTransform create() {
+        DistanceTransform vector = withVectorWidth(0);
+        return vector != null ? vector : new DistanceTransform();
+    }
+    
+    /**
+     * Vector implementation using the given vector width in bits (0 = the platform's
+     * preferred width), or null if the vector module or that width is not available.
+     */
+    public static DistanceTransform withVectorWidth(int bits) {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null;
+        }
+        try {
+            Class<?> implementation = Class.forName(VECTOR_IMPLEMENTATION);
+            return (DistanceTransform) implementation.getMethod("forWidth", int.class).invoke(null, bits);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Not compiled in, or the width is not supported by this CPU
+            return null;
+        }
+    }
+    
+    public String getName() {
+        return "scalar";
+    }
+    
+    /**
+     * Builds the wall mask of a grid (true = wall).
+     */
+    public static boolean[] wallMask(Node[][] grid, int gridSize) {
+        boolean[] walls = new boolean[gridSize * gridSize];
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                walls[x * gridSize + y] = !grid[x][y].isWalkable();
+            }
+        }
+        return walls;
+    }
+    
+    /**
+     * Manhattan distance from every cell to the nearest wall (0 on walls, INFINITY
+     * if the grid has no walls).
+     *
+     * The L1 metric is separable: a forward and a backward pass across rows (each
+     * cell against the same column of the previous row) followed by a forward and a
+     * backward scan along each row give the exact distance.
+     */
+    public void manhattan(boolean[] walls, int[] distance, int gridSize) {
+        initialize(walls, distance);
+        for (int x = 1; x < gridSize; x++) {
+            relaxRow(distance, x * gridSize, (x - 1) * gridSize, gridSize);
+        }
+        for (int x = gridSize - 2; x >= 0; x--) {
+            relaxRow(distance, x * gridSize, (x + 1) * gridSize, gridSize);
+        }
+        // Along a row each cell depends on the one before it, so this stays sequential
+        for (int x = 0; x < gridSize; x++) {
+            int row = x * gridSize;
+            for (int y = 1; y < gridSize; y++) {
+                distance[row + y] = Math.min(distance[row + y], distance[row + y - 1] + 1);
+            }
+            for (int y = gridSize - 2; y >= 0; y--) {
+                distance[row + y] = Math.min(distance[row + y], distance[row + y + 1] + 1);
+            }
+        }
+    }
+    
+    /**
+     * Sets walls to 0 and every other cell to INFINITY.
+     */
+    protected void initialize(boolean[] walls, int[] distance) {
+        for (int i = 0; i < walls.length; i++) {
+            distance[i] = walls[i] ? 0 : INFINITY;
+        }
+    }
+    
+    /**
+     * distance[row + y] = min(distance[row + y], distance[neighborRow + y] + 1) for every y.
+     */
+    protected void relaxRow(int[] distance, int row, int neighborRow, int length) {
+        for (int y = 0; y < length; y++) {
+            distance[row + y] = Math.min(distance[row + y], distance[neighborRow + y] + 1);
+        }
+    }
+    
+    // --- Wall mask operations (out may be one of the inputs) ---
+    
+    public void and(boolean[] a, boolean[] b, boolean[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] & b[i];
+        }
+    }
+    
+    public void or(boolean[] a, boolean[] b, boolean[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] | b[i];
+        }
+    }
+    
+    public void andNot(boolean[] a, boolean[] b, boolean[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] & !b[i];
+        }
+    }
+    
+    /**
+     * Number of set cells (e.g. walls) in a mask.
+     */
+    public int count(boolean[] mask) {
+        int count = 0;
+        for (boolean bit : mask) {
+            if (bit) count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,169 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * Compares the scalar DistanceTransform with the Vector API one at every vector
+ * width the CPU supports, and checks that all of them produce identical results.
+ *
+ * Each implementation is measured in its own JVM: once several vector species have
+ * run in one process, the JIT can no longer specialize the Vector API internals for
+ * any of them and every width slows down.
+ *
+ * Usage (vector rows only appear when the module is added):
+ *   java --add-modules jdk.incubator.vector DistanceTransformBenchmark [--sizes 512,1024,2048] [--iterations 50]
+ */
+public class DistanceTransformBenchmark {
+    
+    private static final int[] VECTOR_WIDTHS = {128, 256, 512};
+    private static final double WALL_DENSITY = 0.25;
+    private static final String RESULT_PREFIX = "RESULT ";
+    
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String sizes = "512,1024,2048";
+        int iterations = 50;
+        String implementation = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--sizes":
+                    sizes = args[i + 1];
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--implementation": // Internal: run one implementation in this JVM
+                    implementation = args[i + 1];
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+        int[] sizeList = Arrays.stream(sizes.split(",")).mapToInt(Integer::parseInt).toArray();
+        
+        if (implementation != null) {
+            DistanceTransform transform = implementation.equals("scalar")
+                ? new DistanceTransform()
+                : DistanceTransform.withVectorWidth(Integer.parseInt(implementation));
+            if (transform == null) return; // Width not supported: no result lines
+            for (int size : sizeList) {
+                measure(transform, size, iterations);
+            }
+            return;
+        }
+        
+        List<String> implementations = new ArrayList<>();
+        implementations.add("scalar");
+        for (int bits : VECTOR_WIDTHS) {
+            if (DistanceTransform.withVectorWidth(bits) != null) {
+                implementations.add(String.valueOf(bits));
+            }
+        }
+        if (implementations.size() == 1) {
+            System.out.println("Vector API not available (run with --add-modules jdk.incubator.vector"
+                + " after compiling simd/); timing the scalar implementation only.");
+        }
+        
+        Map<Integer, List<String[]>> rowsBySize = new TreeMap<>();
+        for (String name : implementations) {
+            for (String[] row : fork(name, sizes, iterations)) {
+                rowsBySize.computeIfAbsent(Integer.parseInt(row[1]), k -> new ArrayList<>()).add(row);
+            }
+        }
+        
+        System.out.printf("%-28s %6s %16s %8s %16s %8s%n",
+            "Implementation", "Size", "Transform ms/op", "Speedup", "Mask ops ms/op", "Speedup");
+        for (List<String[]> rows : rowsBySize.values()) {
+            String[] scalar = rows.get(0);
+            for (String[] row : rows) {
+                if (!row[4].equals(scalar[4])) {
+                    throw new IllegalStateException(row[0] + " differs from the scalar result");
+                }
+                double transformMillis = Double.parseDouble(row[2]);
+                double maskMillis = Double.parseDouble(row[3]);
+                System.out.printf(Locale.ROOT, "%-28s %6s %16.3f %7.2fx %16.3f %7.2fx%n", row[0], row[1],
+                    transformMillis, Double.parseDouble(scalar[2]) / transformMillis,
+                    maskMillis, Double.parseDouble(scalar[3]) / maskMillis);
+            }
+        }
+    }
+    
+    /**
+     * Runs one implementation in a child JVM with the same classpath and modules and
+     * returns its result rows: name, size, transform ms, mask ms, checksum.
+     */
+    private static List<String[]> fork(String implementation, String sizes, int iterations)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            command.add("--add-modules");
+            command.add("jdk.incubator.vector");
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(DistanceTransformBenchmark.class.getName());
+        command.addAll(List.of("--sizes", sizes, "--iterations", String.valueOf(iterations),
+            "--implementation", implementation));
+        
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    rows.add(line.substring(RESULT_PREFIX.length()).split("\t"));
+                }
+            }
+        }
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Benchmark of " + implementation + " failed");
+        }
+        return rows;
+    }
+    
+    private static void measure(DistanceTransform implementation, int size, int iterations) {
+        Random random = new Random(size);
+        boolean[] walls = new boolean[size * size];
+        boolean[] other = new boolean[size * size];
+        for (int i = 0; i < walls.length; i++) {
+            walls[i] = random.nextDouble() < WALL_DENSITY;
+            other[i] = random.nextDouble() < WALL_DENSITY;
+        }
+        int[] distance = new int[size * size];
+        boolean[] out = new boolean[size * size];
+        
+        // Warm up until the vector loops are compiled
+        for (int i = 0; i < Math.max(20, iterations); i++) {
+            implementation.manhattan(walls, distance, size);
+            maskOps(implementation, walls, other, out);
+        }
+        int checksum = Arrays.hashCode(distance) * 31 + maskOps(implementation, walls, other, out);
+        
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            implementation.manhattan(walls, distance, size);
+        }
+        double transformMillis = (System.nanoTime() - start) / 1e6 / iterations;
+        
+        start = System.nanoTime();
+        int counted = 0;
+        for (int i = 0; i < iterations; i++) {
+            counted += maskOps(implementation, walls, other, out);
+        }
+        double maskMillis = (System.nanoTime() - start) / 1e6 / iterations;
+        if (counted < 0) System.out.println(counted); // Keeps the work observable
+        
+        System.out.printf(Locale.ROOT, "%s%s\t%d\t%.4f\t%.4f\t%d%n", RESULT_PREFIX, implementation.getName(), size,
+            transformMillis, maskMillis, checksum);
+    }
+    
+    /**
+     * A typical mask pipeline: combine two wall layers, subtract one, count the result.
+     */
+    private static int maskOps(DistanceTransform implementation, boolean[] walls, boolean[] other, boolean[] out) {
+        implementation.or(walls, other, out);
+        implementation.andNot(out, other, out);
+        implementation.and(out, walls, out);
+        return implementation.count(out);
+    }
+}
@@ -0,0 +1,313 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Goal bounding: for every cell and each of its four moves, the bounding box of all
+ * goals whose shortest path from that cell starts with that move. A* can skip a move
+ * whose box does not contain its goal.
+ *
+ * Each cell gives every goal to exactly one of its moves (the first move of the path
+ * its own search found), so following the moves whose boxes contain the goal always
+ * leads along a shortest path and A* stays optimal. The boxes are computed with one
+ * search per cell, in parallel; steps cost 1, so the per-cell Dijkstra is a BFS.
+ * That is quadratic in the number of cells, so bounds are meant for static maps,
+ * computed once and saved next to the grid.
+ *
+ * File layout (little-endian):
+ *   int     magic "PFGB"
+ *   short   version
+ *   short   reserved (0)
+ *   int     gridSize
+ *   long    hash of the walls the bounds were computed for
+ *   short[] boxes, 16 per cell: minX, maxX, minY, maxY for up, right, down, left
+ *
+ * That is 32 bytes per cell (2 MB for 256x256). Boxes of walls and impossible moves
+ * are empty (min > max). The boxes are only valid for 1x1 agents.
+ */
+public class GoalBounds {
+    
+    private static final int MAGIC = 0x42474650; // "PFGB" in little-endian byte order
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 2 + 2 + 4 + 8;
+    private static final int SHORTS_PER_CELL = 16;
+    
+    // All boxes must fit in one short[] (coordinates then fit in a short as well)
+    public static final int MAX_GRID_SIZE = 11_585;
+    // Files are read and written through a buffer this size, so they may exceed 2 GB
+    private static final int IO_CHUNK_BYTES = 1 << 20;
+    
+    // Directions: up, right, down, left (same order as the searches)
+    private static final int[][] DIRECTIONS = {{0, -1}, {1, 0}, {0, 1}, {-1, 0}};
+    
+    private final int gridSize;
+    private final long wallHash;
+    private final short[] boxes; // indexed by (cell * 4 + direction) * 4
+    
+    private GoalBounds(int gridSize, long wallHash, short[] boxes) {
+        this.gridSize = gridSize;
+        this.wallHash = wallHash;
+        this.boxes = boxes;
+    }
+    
+    /**
+     * Computes the bounds of a grid with one search per open cell, spread over the
+     * given number of threads.
+     */
+    public static GoalBounds compute(Node[][] grid, int gridSize, int threads) {
+        if (gridSize > MAX_GRID_SIZE) {
+            throw new IllegalArgumentException("Grid size " + gridSize + " exceeds " + MAX_GRID_SIZE);
+        }
+        int cells = gridSize * gridSize;
+        boolean[] open = new boolean[cells];
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                open[x * gridSize + y] = grid[x][y].isWalkable();
+            }
+        }
+        short[] boxes = new short[cells * SHORTS_PER_CELL];
+        
+        // Workers claim sources in small chunks; each writes only the boxes of its sources
+        int chunk = Math.max(1, Math.min(256, cells / (threads * 16)));
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(pool.submit(() -> {
+                    Sweep sweep = new Sweep(open, gridSize, boxes);
+                    for (int from = next.getAndAdd(chunk); from < cells; from = next.getAndAdd(chunk)) {
+                        for (int source = from; source < Math.min(cells, from + chunk); source++) {
+                            sweep.run(source);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing goal bounds", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Goal bounds computation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return new GoalBounds(gridSize, wallHash(grid, gridSize), boxes);
+    }
+    
+    /**
+     * Reads a file written by save().
+     */
+    public static GoalBounds load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES) {
+                throw new IOException(path + ": not a goal bounds file (too short)");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, buffer, path);
+            buffer.flip();
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(path + ": not a goal bounds file");
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException(path + ": unsupported goal bounds version " + version);
+            }
+            buffer.getShort();
+            int gridSize = buffer.getInt();
+            if (gridSize <= 0 || gridSize > MAX_GRID_SIZE) {
+                throw new IOException(path + ": invalid grid size " + gridSize);
+            }
+            long wallHash = buffer.getLong();
+            
+            long expected = HEADER_BYTES + 2L * SHORTS_PER_CELL * gridSize * gridSize;
+            if (length != expected) {
+                throw new IOException(path + ": expected " + expected + " bytes, found " + length);
+            }
+            short[] boxes = new short[gridSize * gridSize * SHORTS_PER_CELL];
+            ByteBuffer chunk = ByteBuffer.allocate(IO_CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int offset = 0; offset < boxes.length; ) {
+                int count = Math.min(IO_CHUNK_BYTES / 2, boxes.length - offset);
+                chunk.clear().limit(2 * count);
+                readFully(channel, chunk, path);
+                chunk.flip();
+                chunk.asShortBuffer().get(boxes, offset, count);
+                offset += count;
+            }
+            return new GoalBounds(gridSize, wallHash, boxes);
+        }
+    }
+    
+    /**
+     * Loads the bounds saved at path if they were computed for this grid; otherwise
+     * computes them and saves them there for next time.
+     */
+    public static GoalBounds loadOrCompute(Path path, Node[][] grid, int gridSize, int threads) throws IOException {
+        if (Files.exists(path)) {
+            GoalBounds saved = load(path);
+            if (saved.matches(grid, gridSize)) {
+                return saved;
+            }
+        }
+        GoalBounds computed = compute(grid, gridSize, threads);
+        computed.save(path);
+        return computed;
+    }
+    
+    /**
+     * Writes the bounds; the file is replaced if it exists.
+     */
+    public void save(Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(gridSize).putLong(wallHash);
+        header.flip();
+        
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            ByteBuffer chunk = ByteBuffer.allocate(IO_CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int offset = 0; offset < boxes.length; ) {
+                int count = Math.min(IO_CHUNK_BYTES / 2, boxes.length - offset);
+                chunk.clear();
+                chunk.asShortBuffer().put(boxes, offset, count);
+                chunk.limit(2 * count);
+                writeFully(channel, chunk);
+                offset += count;
+            }
+        }
+    }
+    
+    private static void readFully(FileChannel channel, ByteBuffer buffer, Path path) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException(path + ": goal bounds file ends early");
+            }
+        }
+    }
+    
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
+    /**
+     * Whether these bounds were computed for exactly the walls of the given grid.
+     */
+    public boolean matches(Node[][] grid, int gridSize) {
+        return gridSize == this.gridSize && wallHash(grid, gridSize) == wallHash;
+    }
+    
+    public int getGridSize() {
+        return gridSize;
+    }
+    
+    /**
+     * Whether a shortest path from cell to goalCell may start with the given move
+     * (an index into up, right, down, left).
+     */
+    public boolean allows(int cell, int direction, int goalCell) {
+        int box = (cell * 4 + direction) * 4;
+        int goalX = goalCell / gridSize;
+        int goalY = goalCell % gridSize;
+        return goalX >= boxes[box] && goalX <= boxes[box + 1]
+            && goalY >= boxes[box + 2] && goalY <= boxes[box + 3];
+    }
+    
+    /**
+     * Fingerprint of the walls, one bit per cell folded 64 cells at a time (FNV-1a style).
+     */
+    private static long wallHash(Node[][] grid, int gridSize) {
+        long hash = 0xCBF29CE484222325L ^ gridSize;
+        long word = 0;
+        int cell = 0;
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++, cell++) {
+                if (!grid[x][y].isWalkable()) {
+                    word |= 1L << cell;
+                }
+                if ((cell & 63) == 63) {
+                    hash = (hash ^ word) * 0x100000001B3L;
+                    word = 0;
+                }
+            }
+        }
+        return (hash ^ word) * 0x100000001B3L;
+    }
+    
+    /**
+     * Per-thread scratch space for the searches from each source cell.
+     */
+    private static final class Sweep {
+        private final boolean[] open;
+        private final int gridSize;
+        private final short[] boxes;
+        private final int[] queue;      // Cells as x << 16 | y, which saves two divisions per cell
+        private final int[] seen;       // Source generation that reached the cell
+        private final byte[] firstMove;
+        private final int[] box = new int[SHORTS_PER_CELL];
+        private int generation;
+        
+        Sweep(boolean[] open, int gridSize, short[] boxes) {
+            this.open = open;
+            this.gridSize = gridSize;
+            this.boxes = boxes;
+            this.queue = new int[open.length];
+            this.seen = new int[open.length];
+            this.firstMove = new byte[open.length];
+        }
+        
+        void run(int source) {
+            for (int d = 0; d < 4; d++) {
+                box[d * 4] = box[d * 4 + 2] = Short.MAX_VALUE;
+                box[d * 4 + 1] = box[d * 4 + 3] = -1;
+            }
+            if (open[source]) {
+                search(source);
+            }
+            int base = source * SHORTS_PER_CELL;
+            for (int i = 0; i < SHORTS_PER_CELL; i++) {
+                boxes[base + i] = (short) box[i];
+            }
+        }
+        
+        private void search(int source) {
+            int stamp = ++generation;
+            seen[source] = stamp;
+            queue[0] = source / gridSize << 16 | source % gridSize;
+            int head = 0;
+            int tail = 1;
+            
+            while (head < tail) {
+                int x = queue[head] >>> 16;
+                int y = queue[head++] & 0xFFFF;
+                int cell = x * gridSize + y;
+                for (int d = 0; d < DIRECTIONS.length; d++) {
+                    int newX = x + DIRECTIONS[d][0];
+                    int newY = y + DIRECTIONS[d][1];
+                    if (newX < 0 || newX >= gridSize || newY < 0 || newY >= gridSize) continue;
+                    
+                    int neighbor = newX * gridSize + newY;
+                    if (!open[neighbor] || seen[neighbor] == stamp) continue;
+                    seen[neighbor] = stamp;
+                    int move = cell == source ? d : firstMove[cell];
+                    firstMove[neighbor] = (byte) move;
+                    queue[tail++] = newX << 16 | newY;
+                    
+                    int b = move * 4;
+                    if (newX < box[b]) box[b] = newX;
+                    if (newX > box[b + 1]) box[b + 1] = newX;
+                    if (newY < box[b + 2]) box[b + 2] = newY;
+                    if (newY > box[b + 3]) box[b + 3] = newY;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Compact binary snapshot of a grid, used to save what was drawn or generated and
+ * to replay slow cases in the batch runners.
+ *
+ * Layout (little-endian):
+ *   int    magic "PFGR"
+ *   short  version
+ *   short  flags (HAS_SEED, HAS_COSTS)
+ *   int    gridSize
+ *   int    startX, startY, endX, endY
+ *   long   seed                         if HAS_SEED
+ *   long[] walls, one bit per cell       (gridSize * gridSize + 63) / 64 words
+ *   byte[] terrain cost per cell         gridSize * gridSize bytes, if HAS_COSTS
+ *
+ * Cells are indexed like the search context (x * gridSize + y). A 10M-cell map is
+ * about 1.2 MB without costs; load() maps the file and copies the wall words in bulk.
+ */
+public class GridFile {
+    
+    private static final int MAGIC = 0x52474650; // "PFGR" in little-endian byte order
+    private static final short VERSION = 1;
+    private static final short HAS_SEED = 1;
+    private static final short HAS_COSTS = 2;
+    private static final int HEADER_BYTES = 4 + 2 + 2 + 4 + 4 * 4;
+    
+    private final int gridSize;
+    private final long[] walls;
+    private final int startX;
+    private final int startY;
+    private final int endX;
+    private final int endY;
+    private Long seed;    // null if the grid was not generated from a seed
+    private byte[] costs; // null if every cell costs 1
+    
+    private GridFile(int gridSize, long[] walls, int startX, int startY, int endX, int endY) {
+        this.gridSize = gridSize;
+        this.walls = walls;
+        this.startX = startX;
+        this.startY = startY;
+        this.endX = endX;
+        this.endY = endY;
+    }
+    
+    /**
+     * Captures the walls and the start/end of a grid.
+     */
+    public static GridFile fromGrid(Node[][] grid, int gridSize, Node start, Node end) {
+        long[] walls = new long[wordCount(gridSize)];
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                if (grid[x][y].getState() == Node.State.WALL) {
+                    int cell = x * gridSize + y;
+                    walls[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+        return new GridFile(gridSize, walls, start.getX(), start.getY(), end.getX(), end.getY());
+    }
+    
+    /**
+     * Wraps a wall bitmap in the file's layout (bit x * gridSize + y set for walls);
+     * the array is used as is, not copied.
+     */
+    public static GridFile fromWalls(int gridSize, long[] walls, int startX, int startY, int endX, int endY) {
+        if (walls.length != wordCount(gridSize)) {
+            throw new IllegalArgumentException("Expected " + wordCount(gridSize) + " wall words, got " + walls.length);
+        }
+        if (!inside(startX, startY, gridSize) || !inside(endX, endY, gridSize)) {
+            throw new IllegalArgumentException("Start or end outside the grid");
+        }
+        return new GridFile(gridSize, walls, startX, startY, endX, endY);
+    }
+    
+    /**
+     * Reads a file written by save().
+     */
+    public static GridFile load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES) {
+                throw new IOException(path + ": not a grid file (too short)");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(path + ": not a grid file");
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException(path + ": unsupported grid file version " + version);
+            }
+            short flags = buffer.getShort();
+            int gridSize = buffer.getInt();
+            if (gridSize <= 0 || gridSize > 46_340) { // gridSize * gridSize must fit in an int
+                throw new IOException(path + ": invalid grid size " + gridSize);
+            }
+            int startX = buffer.getInt();
+            int startY = buffer.getInt();
+            int endX = buffer.getInt();
+            int endY = buffer.getInt();
+            if (!inside(startX, startY, gridSize) || !inside(endX, endY, gridSize)) {
+                throw new IOException(path + ": start or end outside the grid");
+            }
+            
+            long expected = HEADER_BYTES + ((flags & HAS_SEED) != 0 ? 8 : 0) + 8L * wordCount(gridSize)
+                + ((flags & HAS_COSTS) != 0 ? (long) gridSize * gridSize : 0);
+            if (length != expected) {
+                throw new IOException(path + ": expected " + expected + " bytes, found " + length);
+            }
+            
+            Long seed = (flags & HAS_SEED) != 0 ? buffer.getLong() : null;
+            long[] walls = new long[wordCount(gridSize)];
+            buffer.asLongBuffer().get(walls);
+            buffer.position(buffer.position() + 8 * walls.length);
+            
+            GridFile file = new GridFile(gridSize, walls, startX, startY, endX, endY);
+            file.seed = seed;
+            if ((flags & HAS_COSTS) != 0) {
+                file.costs = new byte[gridSize * gridSize];
+                buffer.get(file.costs);
+            }
+            return file;
+        }
+    }
+    
+    /**
+     * Writes the grid; the file is replaced if it exists.
+     */
+    public void save(Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + 8).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putShort(VERSION)
+            .putShort((short) ((seed != null ? HAS_SEED : 0) | (costs != null ? HAS_COSTS : 0)))
+            .putInt(gridSize).putInt(startX).putInt(startY).putInt(endX).putInt(endY);
+        if (seed != null) {
+            header.putLong(seed);
+        }
+        header.flip();
+        
+        ByteBuffer wallBytes = ByteBuffer.allocate(8 * walls.length).order(ByteOrder.LITTLE_ENDIAN);
+        wallBytes.asLongBuffer().put(walls);
+        
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] parts = costs != null
+                ? new ByteBuffer[] {header, wallBytes, ByteBuffer.wrap(costs)}
+                : new ByteBuffer[] {header, wallBytes};
+            long remaining = 0;
+            for (ByteBuffer part : parts) {
+                remaining += part.remaining();
+            }
+            while (remaining > 0) {
+                remaining -= channel.write(parts);
+            }
+        }
+    }
+    
+    /**
+     * Builds a Node grid with the saved walls, start and end.
+     */
+    public Node[][] toGrid() {
+        Node[][] grid = new Node[gridSize][gridSize];
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                grid[x][y] = new Node(x, y);
+            }
+        }
+        applyTo(grid);
+        return grid;
+    }
+    
+    /**
+     * Overwrites the states of an existing grid of the same size (paths and visits are cleared).
+     */
+    public void applyTo(Node[][] grid) {
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                Node node = grid[x][y];
+                node.reset();
+                node.setState(isWall(x, y) ? Node.State.WALL : Node.State.EMPTY);
+            }
+        }
+        grid[startX][startY].setState(Node.State.START);
+        grid[endX][endY].setState(Node.State.END);
+    }
+    
+    public int getGridSize() {
+        return gridSize;
+    }
+    
+    public boolean isWall(int x, int y) {
+        int cell = x * gridSize + y;
+        return (walls[cell >>> 6] & 1L << cell) != 0;
+    }
+    
+    public int getStartX() {
+        return startX;
+    }
+    
+    public int getStartY() {
+        return startY;
+    }
+    
+    public int getEndX() {
+        return endX;
+    }
+    
+    public int getEndY() {
+        return endY;
+    }
+    
+    public boolean hasSeed() {
+        return seed != null;
+    }
+    
+    public long getSeed() {
+        return seed;
+    }
+    
+    /**
+     * Records the seed the maze was generated from.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    
+    /**
+     * Terrain cost of each cell (x * gridSize + y), or null if none were saved.
+     */
+    public byte[] getCosts() {
+        return costs;
+    }
+    
+    public void setCosts(byte[] costs) {
+        if (costs != null && costs.length != gridSize * gridSize) {
+            throw new IllegalArgumentException("Expected " + gridSize * gridSize + " costs, got " + costs.length);
+        }
+        this.costs = costs;
+    }
+    
+    private static int wordCount(int gridSize) {
+        return (int) (((long) gridSize * gridSize + 63) / 64);
+    }
+    
+    private static boolean inside(int x, int y, int gridSize) {
+        return x >= 0 && y >= 0 && x < gridSize && y < gridSize;
+    }
+}
@@ -0,0 +1,227 @@
+import javax.swing.JPanel;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Immutable, versioned copy of a grid's walls, shared by concurrent searches.
+ *
+ * Searches only read the walls of its Nodes, so one snapshot can serve any number of
+ * queries at once. Changing walls never touches a published snapshot: withWalls()
+ * builds the next version, which the owner swaps in while searches already running
+ * finish on the old one. Versions share structure: the next version copies only the
+ * rows (grid[x]) containing a changed cell and reuses every other row, so an edit
+ * costs O(gridSize) however large the grid is.
+ */
+public final class GridSnapshot {
+    private final Node[][] grid;
+    private final int gridSize;
+    private final long version;
+    private final boolean pruneDeadEnds;
+    
+    // Built on first use (or eagerly when headless searches prune with it)
+    private volatile DeadEndMap deadEnds;
+    
+    // Built on first use by a subgoal graph search
+    private volatile SubgoalGraph subgoals;
+    
+    // Moves of a 1x1 agent per Connectivity, each built on first use
+    private final AtomicReferenceArray<NeighborTable> neighborTables =
+        new AtomicReferenceArray<>(Connectivity.values().length);
+    
+    // A* pruning for headless searches; only valid for this version's walls
+    private final GoalBounds goalBounds;
+    
+    private GridSnapshot(Node[][] grid, int gridSize, long version, boolean pruneDeadEnds) {
+        this(grid, gridSize, version, pruneDeadEnds, null, null);
+    }
+    
+    private GridSnapshot(Node[][] grid, int gridSize, long version, boolean pruneDeadEnds,
+                         DeadEndMap deadEnds, GoalBounds goalBounds) {
+        this.grid = grid;
+        this.gridSize = gridSize;
+        this.version = version;
+        this.pruneDeadEnds = pruneDeadEnds;
+        this.deadEnds = deadEnds == null && pruneDeadEnds ? new DeadEndMap(grid, gridSize) : deadEnds;
+        this.goalBounds = goalBounds;
+    }
+    
+    /**
+     * First version of the walls of a live grid (which can then be edited freely).
+     */
+    public static GridSnapshot of(Node[][] grid, int gridSize) {
+        return new GridSnapshot(copyWalls(grid, gridSize), gridSize, 1, false);
+    }
+    
+    /**
+     * First version of a grid loaded from a file. With pruneDeadEnds, every version
+     * builds its dead-end map up front and newSearch() prunes with it.
+     */
+    public static GridSnapshot of(GridFile file, boolean pruneDeadEnds) {
+        return new GridSnapshot(file.toGrid(), file.getGridSize(), 1, pruneDeadEnds);
+    }
+    
+    /**
+     * First version of a MovingAI map (padded to a square grid).
+     */
+    public static GridSnapshot of(MovingAIMap map, boolean pruneDeadEnds) {
+        return new GridSnapshot(map.toGrid(), map.getGridSize(), 1, pruneDeadEnds);
+    }
+    
+    /**
+     * Next version with each of the given cells (x * gridSize + y) set to wall or open.
+     * Rows without changes are shared with this version; goal bounds are dropped.
+     */
+    public GridSnapshot withWalls(int[] cells, boolean[] walls) {
+        Node[][] next = grid.clone();
+        for (int i = 0; i < cells.length; i++) {
+            int x = cells[i] / gridSize;
+            if (next[x] == grid[x]) {
+                next[x] = copyRow(grid[x]);
+            }
+            next[x][cells[i] % gridSize].setState(walls[i] ? Node.State.WALL : Node.State.EMPTY);
+        }
+        return new GridSnapshot(next, gridSize, version + 1, pruneDeadEnds);
+    }
+    
+    /**
+     * Next version with (x, y) set to wall or open.
+     */
+    public GridSnapshot withWall(int x, int y, boolean wall) {
+        return withWalls(new int[] {x * gridSize + y}, new boolean[] {wall});
+    }
+    
+    /**
+     * Next version with all walls taken from a live grid of the same size (after
+     * bulk changes such as a new maze). Nothing is shared.
+     */
+    public GridSnapshot withWallsOf(Node[][] source) {
+        return new GridSnapshot(copyWalls(source, gridSize), gridSize, version + 1, pruneDeadEnds);
+    }
+    
+    /**
+     * The same version with goal bounds for its headless A* searches, loaded from the
+     * file if it matches these walls, else computed on the given number of threads
+     * and saved there (see GoalBounds).
+     */
+    public GridSnapshot withGoalBounds(Path file, int threads) throws IOException {
+        GoalBounds bounds = GoalBounds.loadOrCompute(file, grid, gridSize, threads);
+        return new GridSnapshot(grid, gridSize, version, pruneDeadEnds, deadEnds, bounds);
+    }
+    
+    /**
+     * Headless search over this snapshot; its context comes from the shared pool and
+     * goes back on close().
+     */
+    public PathfindingAlgorithm newSearch() {
+        return newSearch(Connectivity.FOUR);
+    }
+    
+    /**
+     * Headless search whose A*, Dijkstra and Theta* move as given, with this version's
+     * neighbor table for that connectivity.
+     */
+    public PathfindingAlgorithm newSearch(Connectivity connectivity) {
+        PathfindingAlgorithm pathfinder = new PathfindingAlgorithm(grid, gridSize);
+        pathfinder.setConnectivity(connectivity);
+        pathfinder.setNeighborTable(getNeighborTable(connectivity));
+        if (pruneDeadEnds) {
+            pathfinder.setDeadEndPruning(true);
+            pathfinder.setDeadEndMap(deadEnds);
+        }
+        pathfinder.setGoalBounds(goalBounds);
+        return pathfinder;
+    }
+    
+    /**
+     * Animated search over this snapshot's walls that colors the Nodes of display,
+     * the live grid the user may keep editing meanwhile.
+     */
+    public PathfindingAlgorithm newSearch(Node[][] display, JPanel panel, int delay) {
+        return new PathfindingAlgorithm(grid, display, gridSize, panel, delay);
+    }
+    
+    /**
+     * Dead-end regions of this version, computed on the first call.
+     */
+    public DeadEndMap getDeadEndMap() {
+        DeadEndMap map = deadEnds;
+        if (map == null) {
+            synchronized (this) {
+                map = deadEnds;
+                if (map == null) {
+                    map = deadEnds = new DeadEndMap(grid, gridSize);
+                }
+            }
+        }
+        return map;
+    }
+    
+    /**
+     * Subgoal graph of this version, computed on the first call.
+     */
+    public SubgoalGraph getSubgoalGraph() {
+        SubgoalGraph graph = subgoals;
+        if (graph == null) {
+            synchronized (this) {
+                graph = subgoals;
+                if (graph == null) {
+                    graph = subgoals = new SubgoalGraph(grid, gridSize);
+                }
+            }
+        }
+        return graph;
+    }
+    
+    /**
+     * Moves of a 1x1 agent on this version's walls, computed on the first call per
+     * connectivity. Threads racing on the first call may each build one; all but the
+     * first are dropped.
+     */
+    public NeighborTable getNeighborTable(Connectivity connectivity) {
+        NeighborTable table = neighborTables.get(connectivity.ordinal());
+        if (table == null) {
+            neighborTables.compareAndSet(connectivity.ordinal(), null, new NeighborTable(grid, gridSize, connectivity));
+            table = neighborTables.get(connectivity.ordinal());
+        }
+        return table;
+    }
+    
+    public Node nodeAt(int x, int y) {
+        return grid[x][y];
+    }
+    
+    public boolean isWalkable(int x, int y) {
+        return grid[x][y].isWalkable();
+    }
+    
+    public int getGridSize() {
+        return gridSize;
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public boolean hasGoalBounds() {
+        return goalBounds != null;
+    }
+    
+    private static Node[][] copyWalls(Node[][] source, int gridSize) {
+        Node[][] copy = new Node[gridSize][];
+        for (int x = 0; x < gridSize; x++) {
+            copy[x] = copyRow(source[x]);
+        }
+        return copy;
+    }
+    
+    private static Node[] copyRow(Node[] row) {
+        Node[] copy = new Node[row.length];
+        for (int y = 0; y < row.length; y++) {
+            Node node = new Node(row[y].getX(), y);
+            node.setState(row[y].isWalkable() ? Node.State.EMPTY : Node.State.WALL);
+            copy[y] = node;
+        }
+        return copy;
+    }
+}
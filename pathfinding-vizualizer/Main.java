@@ -1,6 +1,10 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.Random;
 
 /**
  * Main class for Pathfinding Visualizer
@@ -11,19 +15,51 @@ public class Main extends JFrame {
     private static final int CELL_SIZE = 20;
     private static final int WINDOW_SIZE = GRID_SIZE * CELL_SIZE;
     
+    // Small enough that SMA* visibly forgets branches on the 30x30 grid
+    private static final int SEARCH_MEMORY_LIMIT = 150;
+    
+    // Wall-clock budget for the anytime planner, generous enough for the animation
+    private static final long ANYTIME_TIME_BUDGET_MS = 5000;
+    
+    private static final String TITLE = "Pathfinding Visualizer - 13 Algorithms";
+    
+    // Per-run deadline; slow animations of the exhaustive searches fit comfortably
+    private static final long SEARCH_TIMEOUT_MS = 120_000;
+    
     private Node[][] grid;
     private GridPanel gridPanel;
     private Node startNode;
     private Node endNode;
     private int visualizationDelay = 20;
-    private String selectedAlgorithm = "A*";
+    private SearchAlgorithm selectedAlgorithm = SearchAlgorithm.A_STAR;
+    private int agentSize = 1;
+    private Connectivity connectivity = Connectivity.FOUR;
+    
+    // Kept up to date on every wall edit; A* and Dijkstra use it for agents larger than a cell
+    private ClearanceMap clearanceMap;
+    
+    // Whether A*, Dijkstra and BFS skip dead-end regions (each grid version caches its map)
+    private boolean deadEndPruning;
+    
+    // Walls as of the last edit. Every edit makes a new version; a search runs on the
+    // version it started with while the grid above stays editable.
+    private GridSnapshot gridVersion;
+    
+    // Metric the heatmap overlay shows, null when off; with a metric, runs are profiled headlessly
+    private SearchProfile.Metric heatmap;
+    
+    // Seed of the last random maze, saved with the grid so the maze can be regenerated
+    private Long mazeSeed;
+    
+    // Runs one search at a time; a new run cancels the previous one
+    private final SearchExecutor searchExecutor = new SearchExecutor(SearchExecutor.Policy.SUPERSEDE);
     
     // Mouse state
     private enum DrawMode { NONE, WALL, ERASE }
     private DrawMode drawMode = DrawMode.NONE;
     
     public Main() {
-        setTitle("Pathfinding Visualizer - 6 Algorithms");
+        setTitle(TITLE);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setResizable(false);
         
@@ -49,6 +85,9 @@ public class Main extends JFrame {
         
         endNode = grid[GRID_SIZE - 6][GRID_SIZE - 6];
         endNode.setState(Node.State.END);
+        
+        clearanceMap = new ClearanceMap(grid, GRID_SIZE);
+        gridVersion = GridSnapshot.of(grid, GRID_SIZE);
     }
     
     private void setupUI() {
@@ -66,17 +105,15 @@ public class Main extends JFrame {
     private JPanel createControlPanel() {
         JPanel panel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
         panel.setBackground(new Color(240, 240, 240));
-        panel.setPreferredSize(new Dimension(WINDOW_SIZE, 80));
+        panel.setPreferredSize(new Dimension(WINDOW_SIZE, 150));
         
         // Algorithm selection (ordered by speed: fastest to slowest)
         JLabel algoLabel = new JLabel("Algorithm:");
         algoLabel.setFont(new Font("Arial", Font.BOLD, 12));
         
-        JComboBox<String> algoCombo = new JComboBox<>(new String[]{
-            "Greedy Best-First", "A*", "Dijkstra", "BFS", "Bellman-Ford", "DFS"
-        });
-        algoCombo.setSelectedItem("A*"); // Default to A*
-        algoCombo.addActionListener(e -> selectedAlgorithm = (String) algoCombo.getSelectedItem());
+        JComboBox<SearchAlgorithm> algoCombo = new JComboBox<>(SearchAlgorithm.values());
+        algoCombo.setSelectedItem(SearchAlgorithm.A_STAR); // Default to A*
+        algoCombo.addActionListener(e -> selectedAlgorithm = (SearchAlgorithm) algoCombo.getSelectedItem());
         
         // Speed control
         JLabel speedLabel = new JLabel("Speed:");
@@ -89,6 +126,45 @@ public class Main extends JFrame {
             visualizationDelay = 100 - value; // Invert so higher value = faster
         });
         
+        // Agent size (k x k) for A* and Dijkstra
+        JLabel agentLabel = new JLabel("Agent:");
+        agentLabel.setFont(new Font("Arial", Font.BOLD, 12));
+        
+        JSpinner agentSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 4, 1));
+        agentSpinner.setToolTipText("Agent size k (k x k cells) used by A* and Dijkstra");
+        agentSpinner.addChangeListener(e -> agentSize = (Integer) agentSpinner.getValue());
+        
+        // Diagonal moves for A*, Dijkstra and Theta*
+        JLabel movesLabel = new JLabel("Moves:");
+        movesLabel.setFont(new Font("Arial", Font.BOLD, 12));
+        
+        JComboBox<Connectivity> movesCombo = new JComboBox<>(Connectivity.values());
+        movesCombo.setToolTipText("Moves of A*, Dijkstra and Theta*; the other algorithms use 4 directions");
+        movesCombo.addActionListener(e -> connectivity = (Connectivity) movesCombo.getSelectedItem());
+        
+        // Heatmap of the search effort instead of the animation
+        JLabel heatmapLabel = new JLabel("Heatmap:");
+        heatmapLabel.setFont(new Font("Arial", Font.BOLD, 12));
+        
+        SearchProfile.Metric[] metrics = SearchProfile.Metric.values();
+        String[] heatmapNames = new String[metrics.length + 1];
+        heatmapNames[0] = "Off";
+        for (int i = 0; i < metrics.length; i++) {
+            heatmapNames[i + 1] = metrics[i].getDisplayName();
+        }
+        JComboBox<String> heatmapCombo = new JComboBox<>(heatmapNames);
+        heatmapCombo.setToolTipText("Run without animation and color each cell by the search's effort there");
+        heatmapCombo.addActionListener(e -> {
+            int index = heatmapCombo.getSelectedIndex();
+            heatmap = index == 0 ? null : metrics[index - 1];
+            gridPanel.showMetric(heatmap);
+        });
+        
+        JCheckBox deadEndBox = new JCheckBox("Skip dead ends");
+        deadEndBox.setOpaque(false);
+        deadEndBox.setToolTipText("A*, Dijkstra and BFS ignore regions reachable through a single cell");
+        deadEndBox.addActionListener(e -> deadEndPruning = deadEndBox.isSelected());
+        
         // Buttons
         JButton runButton = new JButton("▶ Run");
         runButton.setForeground(Color.BLACK);
@@ -96,17 +172,41 @@ public class Main extends JFrame {
         runButton.setFont(new Font("Arial", Font.BOLD, 12));
         runButton.addActionListener(e -> runAlgorithm());
         
+        JButton stopButton = new JButton("■ Stop");
+        stopButton.setFocusPainted(false);
+        stopButton.addActionListener(e -> searchExecutor.cancelAll());
+        
         JButton clearPathButton = new JButton("Clear Path");
-        clearPathButton.addActionListener(e -> clearPath());
+        clearPathButton.addActionListener(e -> {
+            searchExecutor.cancelAll();
+            clearPath();
+        });
         
         JButton clearAllButton = new JButton("Clear All");
-        clearAllButton.addActionListener(e -> clearAll());
+        clearAllButton.addActionListener(e -> {
+            searchExecutor.cancelAll();
+            clearAll();
+        });
         
         JButton randomMazeButton = new JButton("🎲 Random Maze");
         randomMazeButton.setForeground(Color.BLACK);
         randomMazeButton.setFocusPainted(false);
         randomMazeButton.setFont(new Font("Arial", Font.BOLD, 12));
-        randomMazeButton.addActionListener(e -> generateRandomMaze());
+        randomMazeButton.addActionListener(e -> {
+            searchExecutor.cancelAll();
+            generateRandomMaze();
+        });
+        
+        JButton saveButton = new JButton("Save");
+        saveButton.setToolTipText("Save the walls, start and end to a .grid file");
+        saveButton.addActionListener(e -> saveGrid());
+        
+        JButton loadButton = new JButton("Load");
+        loadButton.setToolTipText("Load a .grid file saved here or by BatchRunner");
+        loadButton.addActionListener(e -> {
+            searchExecutor.cancelAll();
+            loadGrid();
+        });
         
         // Add components
         panel.add(algoLabel);
@@ -114,57 +214,116 @@ public class Main extends JFrame {
         panel.add(new JSeparator(SwingConstants.VERTICAL));
         panel.add(speedLabel);
         panel.add(speedSlider);
+        panel.add(agentLabel);
+        panel.add(agentSpinner);
+        panel.add(movesLabel);
+        panel.add(movesCombo);
+        panel.add(deadEndBox);
+        panel.add(heatmapLabel);
+        panel.add(heatmapCombo);
         panel.add(new JSeparator(SwingConstants.VERTICAL));
         panel.add(runButton);
+        panel.add(stopButton);
         panel.add(clearPathButton);
         panel.add(clearAllButton);
         panel.add(randomMazeButton);
+        panel.add(saveButton);
+        panel.add(loadButton);
         
         return panel;
     }
     
     private void runAlgorithm() {
-        clearPath();
-        
-        new Thread(() -> {
-            PathfindingAlgorithm pathfinder = new PathfindingAlgorithm(
-                grid, GRID_SIZE, gridPanel, visualizationDelay
-            );
+        // Snapshot the UI settings; the run itself happens on the search worker
+        SearchAlgorithm algorithm = selectedAlgorithm;
+        Node start = startNode;
+        Node end = endNode;
+        int delay = visualizationDelay;
+        int agent = agentSize;
+        Connectivity moves = connectivity;
+        GridSnapshot walls = gridVersion; // Walls may be edited while the search runs
+        ClearanceMap clearance = clearanceMap.copy();
+        boolean pruneDeadEnds = deadEndPruning;
+        DeadEndMap deadEnds = pruneDeadEnds ? walls.getDeadEndMap() : null;
+        SubgoalGraph subgoals = algorithm == SearchAlgorithm.SUBGOAL_GRAPH ? walls.getSubgoalGraph() : null;
+        // Profiled runs are headless: the counts are collected first and drawn once at the end
+        SearchProfile profile = heatmap != null ? new SearchProfile(GRID_SIZE * GRID_SIZE) : null;
+        
+        searchExecutor.submit(token -> {
+            // Queued behind the colors of any superseded search, ahead of this one's
+            SwingUtilities.invokeLater(() -> {
+                clearPath();
+                setTitle(TITLE + " - " + algorithm + " running on version " + walls.getVersion());
+            });
             
             PathfindingResult result;
-            switch (selectedAlgorithm) {
-                case "Greedy Best-First":
-                    result = pathfinder.greedyBestFirst(startNode, endNode);
-                    break;
-                case "A*":
-                    result = pathfinder.aStar(startNode, endNode);
-                    break;
-                case "Dijkstra":
-                    result = pathfinder.dijkstra(startNode, endNode);
-                    break;
-                case "BFS":
-                    result = pathfinder.bfs(startNode, endNode);
-                    break;
-                case "Bellman-Ford":
-                    result = pathfinder.bellmanFord(startNode, endNode);
-                    break;
-                case "DFS":
-                    result = pathfinder.dfs(startNode, endNode);
-                    break;
-                default:
-                    result = pathfinder.aStar(startNode, endNode);
+            String loadReport;
+            try (PathfindingAlgorithm pathfinder = profile != null
+                    ? walls.newSearch(grid, null, 0) : walls.newSearch(grid, gridPanel, delay)) {
+                pathfinder.setMemoryLimit(SEARCH_MEMORY_LIMIT);
+                pathfinder.setSearchToken(token);
+                pathfinder.setAgentSize(agent);
+                pathfinder.setClearanceMap(clearance);
+                pathfinder.setDeadEndPruning(pruneDeadEnds);
+                pathfinder.setDeadEndMap(deadEnds);
+                pathfinder.setSubgoalGraph(subgoals);
+                pathfinder.setConnectivity(moves);
+                pathfinder.setNeighborTable(walls.getNeighborTable(moves));
+                pathfinder.setProfile(profile);
+                
+                if (algorithm == SearchAlgorithm.ARA_STAR) {
+                    result = pathfinder.anytimeAStar(start, end, ANYTIME_TIME_BUDGET_MS,
+                        improved -> SwingUtilities.invokeLater(() -> setTitle(String.format(
+                            "%s - ARA* path %d (within %.1fx of optimal)", TITLE,
+                            improved.getPathLength(), improved.getSuboptimalityBound()))));
+                } else {
+                    result = algorithm.run(pathfinder, start, end);
+                }
+                loadReport = pathfinder.getParallelLoadReport();
             }
             
-            PathfindingResult finalResult = result;
             SwingUtilities.invokeLater(() -> {
-                String message = selectedAlgorithm + " Algorithm:\n" + finalResult.toString();
+                // Stopped or superseded by the user: no dialog, just reset the title
+                if (result.isCancelled() && !token.isTimedOut()) {
+                    setTitle(TITLE);
+                    return;
+                }
+                
+                setTitle(TITLE);
+                String message = algorithm + " Algorithm:\n" + (token.isTimedOut()
+                    ? "Timed out after " + SEARCH_TIMEOUT_MS / 1000 + " s. Nodes visited: " + result.getNodesVisited()
+                    : result.toString());
+                if (!loadReport.isEmpty()) {
+                    message += "\n" + loadReport;
+                }
+                if (profile != null) {
+                    gridPanel.showProfile(profile, result);
+                    message += algorithm == SearchAlgorithm.HDA_STAR
+                        ? "\nHDA* is not profiled (its workers run on their own threads)"
+                        : "\nProfile: " + profile;
+                }
+                message += "\nSearch ran on version " + walls.getVersion();
+                if (gridVersion.getVersion() != walls.getVersion()) {
+                    message += " (edited since, now version " + gridVersion.getVersion() + ")";
+                }
                 JOptionPane.showMessageDialog(this, message, "Result", 
-                    finalResult.isSuccess() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+                    result.isSuccess() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+            });
+            return result;
+        }, SEARCH_TIMEOUT_MS, algorithm == SearchAlgorithm.ARA_STAR ? null : nodesVisited -> SwingUtilities.invokeLater(
+            () -> setTitle(TITLE + " - " + algorithm + ": " + nodesVisited + " nodes visited")), null,
+            error -> {
+                error.printStackTrace();
+                SwingUtilities.invokeLater(() -> {
+                    setTitle(TITLE);
+                    JOptionPane.showMessageDialog(this, algorithm + " failed:\n" + error,
+                        "Search Error", JOptionPane.ERROR_MESSAGE);
+                });
             });
-        }).start();
     }
     
     private void clearPath() {
+        gridPanel.showProfile(null, null);
         for (int x = 0; x < GRID_SIZE; x++) {
             for (int y = 0; y < GRID_SIZE; y++) {
                 grid[x][y].reset();
@@ -188,6 +347,8 @@ public class Main extends JFrame {
         endNode = grid[GRID_SIZE - 6][GRID_SIZE - 6];
         endNode.setState(Node.State.END);
         
+        mazeSeed = null;
+        wallsReplaced();
         gridPanel.repaint();
     }
     
@@ -196,110 +357,83 @@ public class Main extends JFrame {
      */
     private void generateRandomMaze() {
         clearAll();
-        
-        java.util.Random random = new java.util.Random();
-        
-        // Random density between 20% and 35%
-        double wallDensity = 0.20 + random.nextDouble() * 0.15;
-        
-        for (int x = 0; x < GRID_SIZE; x++) {
-            for (int y = 0; y < GRID_SIZE; y++) {
-                Node node = grid[x][y];
-                
-                // Don't place walls on start or end nodes
-                if (node != startNode && node != endNode) {
-                    if (random.nextDouble() < wallDensity) {
-                        node.setState(Node.State.WALL);
-                    }
-                }
-            }
-        }
-        
-        // Optional: Add some patterns for more interesting mazes
-        addRandomPatterns(random);
-        
+        long seed = new Random().nextLong();
+        new MazeGenerator(grid, GRID_SIZE, startNode, endNode, new Random(seed)).generate();
+        mazeSeed = seed;
+        wallsReplaced();
         gridPanel.repaint();
     }
     
     /**
-     * Adds random wall patterns for more interesting mazes
+     * Keeps the maps derived from the walls in sync after (x, y) was drawn or erased.
      */
-    private void addRandomPatterns(java.util.Random random) {
-        int numPatterns = random.nextInt(3) + 2; // 2-4 patterns
-        
-        for (int i = 0; i < numPatterns; i++) {
-            int pattern = random.nextInt(3);
-            
-            switch (pattern) {
-                case 0: // Horizontal line
-                    addHorizontalLine(random);
-                    break;
-                case 1: // Vertical line
-                    addVerticalLine(random);
-                    break;
-                case 2: // L-shape
-                    addLShape(random);
-                    break;
-            }
-        }
+    private void wallChanged(int x, int y) {
+        clearanceMap.update(x, y);
+        gridVersion = gridVersion.withWall(x, y, !grid[x][y].isWalkable());
     }
     
-    private void addHorizontalLine(java.util.Random random) {
-        int y = random.nextInt(GRID_SIZE);
-        int startX = random.nextInt(GRID_SIZE / 2);
-        int length = random.nextInt(GRID_SIZE / 3) + 3;
-        
-        for (int x = startX; x < Math.min(startX + length, GRID_SIZE); x++) {
-            Node node = grid[x][y];
-            if (node != startNode && node != endNode) {
-                node.setState(Node.State.WALL);
-            }
-        }
+    /**
+     * Same after bulk changes (clear, new maze, loaded grid).
+     */
+    private void wallsReplaced() {
+        gridPanel.showProfile(null, null);
+        clearanceMap.recompute();
+        gridVersion = gridVersion.withWallsOf(grid);
     }
     
-    private void addVerticalLine(java.util.Random random) {
-        int x = random.nextInt(GRID_SIZE);
-        int startY = random.nextInt(GRID_SIZE / 2);
-        int length = random.nextInt(GRID_SIZE / 3) + 3;
-        
-        for (int y = startY; y < Math.min(startY + length, GRID_SIZE); y++) {
-            Node node = grid[x][y];
-            if (node != startNode && node != endNode) {
-                node.setState(Node.State.WALL);
-            }
+    private void saveGrid() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("grid.grid"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        
+        GridFile file = GridFile.fromGrid(grid, GRID_SIZE, startNode, endNode);
+        if (mazeSeed != null) {
+            file.setSeed(mazeSeed);
+        }
+        try {
+            file.save(chooser.getSelectedFile().toPath());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not save: " + e.getMessage(), "Save",
+                JOptionPane.ERROR_MESSAGE);
         }
     }
     
-    private void addLShape(java.util.Random random) {
-        int x = random.nextInt(GRID_SIZE - 5) + 2;
-        int y = random.nextInt(GRID_SIZE - 5) + 2;
-        int size = random.nextInt(4) + 3;
-        
-        // Horizontal part
-        for (int i = 0; i < size; i++) {
-            if (x + i < GRID_SIZE) {
-                Node node = grid[x + i][y];
-                if (node != startNode && node != endNode) {
-                    node.setState(Node.State.WALL);
-                }
-            }
-        }
+    private void loadGrid() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
         
-        // Vertical part
-        for (int i = 0; i < size; i++) {
-            if (y + i < GRID_SIZE) {
-                Node node = grid[x][y + i];
-                if (node != startNode && node != endNode) {
-                    node.setState(Node.State.WALL);
-                }
-            }
+        GridFile file;
+        try {
+            file = GridFile.load(chooser.getSelectedFile().toPath());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not load: " + e.getMessage(), "Load",
+                JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (file.getGridSize() != GRID_SIZE) {
+            JOptionPane.showMessageDialog(this, "The grid is " + file.getGridSize() + "x" + file.getGridSize()
+                + "; the visualizer shows " + GRID_SIZE + "x" + GRID_SIZE + ". Use BatchRunner --grid for other sizes.",
+                "Load", JOptionPane.WARNING_MESSAGE);
+            return;
         }
+        
+        file.applyTo(grid);
+        startNode = grid[file.getStartX()][file.getStartY()];
+        endNode = grid[file.getEndX()][file.getEndY()];
+        mazeSeed = file.hasSeed() ? file.getSeed() : null;
+        wallsReplaced();
+        gridPanel.repaint();
     }
     
     /**
      * Custom panel for drawing the grid
      */
     class GridPanel extends JPanel {
+        // Overlay of the last profiled run (see SearchProfile), drawn over the nodes
+        private SearchProfile profile;
+        private int[] profiledPath = new int[0];
+        private SearchProfile.Metric metric;
+        
         public GridPanel() {
             setPreferredSize(new Dimension(WINDOW_SIZE, WINDOW_SIZE));
             setBackground(Color.WHITE);
@@ -334,9 +468,11 @@ public class Main extends JFrame {
                 if (node.getState() == Node.State.WALL) {
                     drawMode = DrawMode.ERASE;
                     node.setState(Node.State.EMPTY);
+                    wallChanged(x, y);
                 } else if (node.getState() == Node.State.EMPTY) {
                     drawMode = DrawMode.WALL;
                     node.setState(Node.State.WALL);
+                    wallChanged(x, y);
                 }
                 
                 repaint();
@@ -353,26 +489,50 @@ public class Main extends JFrame {
                 if (node != startNode && node != endNode) {
                     if (drawMode == DrawMode.WALL && node.getState() == Node.State.EMPTY) {
                         node.setState(Node.State.WALL);
+                        wallChanged(x, y);
                         repaint();
                     } else if (drawMode == DrawMode.ERASE && node.getState() == Node.State.WALL) {
                         node.setState(Node.State.EMPTY);
+                        wallChanged(x, y);
                         repaint();
                     }
                 }
             }
         }
         
+        /**
+         * Shows the counts of a profiled run and its path (null to remove the overlay).
+         */
+        void showProfile(SearchProfile profile, PathfindingResult result) {
+            this.profile = profile;
+            IntBuffer path = result == null ? IntBuffer.allocate(0) : result.getPath();
+            profiledPath = new int[path.remaining()];
+            path.get(profiledPath);
+            repaint();
+        }
+        
+        void showMetric(SearchProfile.Metric metric) {
+            this.metric = metric;
+            repaint();
+        }
+        
         @Override
         protected void paintComponent(Graphics g) {
+            SearchEvents.GridRepaint event = new SearchEvents.GridRepaint();
+            event.begin();
             super.paintComponent(g);
             Graphics2D g2d = (Graphics2D) g;
             g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
             
-            // Draw nodes
+            // Draw nodes, or the heatmap of the last profiled run over the open ones
+            boolean overlay = profile != null && metric != null;
+            long max = overlay ? profile.max(metric) : 0;
             for (int x = 0; x < GRID_SIZE; x++) {
                 for (int y = 0; y < GRID_SIZE; y++) {
                     Node node = grid[x][y];
-                    g2d.setColor(node.getColor());
+                    long value = overlay ? profile.get(metric, x * GRID_SIZE + y) : 0;
+                    boolean open = node.getState() == Node.State.EMPTY || node.getState() == Node.State.VISITED;
+                    g2d.setColor(open && value > 0 ? heatColor(value, max) : node.getColor());
                     g2d.fillRect(x * CELL_SIZE, y * CELL_SIZE, CELL_SIZE, CELL_SIZE);
                 }
             }
@@ -383,6 +543,52 @@ public class Main extends JFrame {
                 g2d.drawLine(i * CELL_SIZE, 0, i * CELL_SIZE, WINDOW_SIZE);
                 g2d.drawLine(0, i * CELL_SIZE, WINDOW_SIZE, i * CELL_SIZE);
             }
+            
+            if (overlay) {
+                drawProfiledPath(g2d);
+                drawLegend(g2d, max);
+            }
+            
+            event.gridSize = GRID_SIZE;
+            event.commit();
+        }
+        
+        /**
+         * Pale yellow for the smallest values to dark red for the largest.
+         */
+        private Color heatColor(long value, long max) {
+            float t = max <= 1 ? 1f : (float) (value - 1) / (max - 1);
+            return new Color(255 - Math.round(66 * t), 255 - Math.round(255 * t), 178 - Math.round(140 * t));
+        }
+        
+        /**
+         * The path as a line through the cell centers, so the colors under it stay visible.
+         */
+        private void drawProfiledPath(Graphics2D g2d) {
+            g2d.setColor(new Color(0, 90, 200));
+            g2d.setStroke(new BasicStroke(3f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            int half = CELL_SIZE / 2;
+            for (int i = 1; i < profiledPath.length; i++) {
+                int from = profiledPath[i - 1];
+                int to = profiledPath[i];
+                g2d.drawLine(from / GRID_SIZE * CELL_SIZE + half, from % GRID_SIZE * CELL_SIZE + half,
+                    to / GRID_SIZE * CELL_SIZE + half, to % GRID_SIZE * CELL_SIZE + half);
+            }
+            g2d.setStroke(new BasicStroke());
+        }
+        
+        private void drawLegend(Graphics2D g2d, long max) {
+            String range = metric == SearchProfile.Metric.FIRST_VISIT
+                ? String.format("up to %.2f ms", max / 1e6)
+                : "1 to " + max;
+            String text = profile.getAlgorithm() + " - " + metric.getDisplayName() + ": " + range;
+            FontMetrics metrics = g2d.getFontMetrics();
+            int width = metrics.stringWidth(text) + 12;
+            int height = metrics.getHeight() + 6;
+            g2d.setColor(new Color(255, 255, 255, 220));
+            g2d.fillRect(4, WINDOW_SIZE - height - 4, width, height);
+            g2d.setColor(Color.DARK_GRAY);
+            g2d.drawString(text, 10, WINDOW_SIZE - 7 - metrics.getDescent());
         }
     }
     
@@ -0,0 +1,514 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded generators of large benchmark maps, written straight into a packed wall bitmap
+ * (one bit per cell x * gridSize + y, set for walls) as stored by GridFile.
+ *
+ * Styles:
+ * - BACKTRACKER: perfect maze from a randomized depth-first search, long winding corridors
+ * - KRUSKAL: perfect maze from randomized Kruskal with union-find, many short dead ends
+ * - WILSON: perfect maze from loop-erased random walks, uniform over all spanning trees
+ * - ROOMS: a lattice of rooms of random size, joined by corridors along a random spanning
+ *   tree plus some extra loops
+ * - CAVES: cellular automaton caves (45% noise, five smoothing passes), trimmed to the
+ *   largest open region
+ *
+ * The mazes open the cells at odd coordinates and carve passages between them. Every map is connected;
+ * the start is the open cell with the smallest index, the end the one with the largest.
+ * The same style, size and seed always give the same map.
+ *
+ * Only primitive arrays and a SplittableRandom are used, so a 10M-cell map (3163 x 3163)
+ * takes a few hundred milliseconds. Run on its own to time a style or write a .grid file:
+ *   java MapGenerator <style> <size> [seed] [file.grid]
+ */
+public class MapGenerator {
+    
+    public enum Style {
+        BACKTRACKER, KRUSKAL, WILSON, ROOMS, CAVES;
+        
+        /**
+         * Looks a style up by name, ignoring case.
+         */
+        public static Style fromName(String name) {
+            for (Style style : values()) {
+                if (style.name().equalsIgnoreCase(name.trim())) {
+                    return style;
+                }
+            }
+            throw new IllegalArgumentException("Unknown map style: " + name);
+        }
+        
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+    
+    public static final int MIN_SIZE = 16;
+    
+    // Side of the lattice blocks that each hold one room
+    private static final int ROOM_BLOCK = 12;
+    
+    // Chance that a lattice edge outside the spanning tree still gets a corridor
+    private static final double EXTRA_CORRIDOR = 0.15;
+    
+    // Noise of 58 in 128 (45%) walls, then cells with at least 5 walls around them become walls
+    private static final int CAVE_NOISE = 58;
+    private static final int CAVE_PASSES = 5;
+    private static final int CAVE_WALL_THRESHOLD = 5;
+    
+    // Marks of wilson()'s lattice cells that are not walked through
+    private static final byte IN_TREE = -1;
+    private static final byte BORDER = -2;
+    
+    // Mark of cave cells already flooded by largestRegion() (walls are 1)
+    private static final byte FLOODED = 2;
+    
+    private final int gridSize;
+    private final SplittableRandom random;
+    private final long[] walls;
+    
+    private MapGenerator(int gridSize, long seed) {
+        this.gridSize = gridSize;
+        this.random = new SplittableRandom(seed);
+        this.walls = new long[(int) (((long) gridSize * gridSize + 63) / 64)];
+    }
+    
+    /**
+     * Generates a map; the returned file records the seed.
+     */
+    public static GridFile generate(Style style, int gridSize, long seed) {
+        if (gridSize < MIN_SIZE || gridSize > 46_340) {
+            throw new IllegalArgumentException("Grid size must be between " + MIN_SIZE + " and 46340: " + gridSize);
+        }
+        MapGenerator generator = new MapGenerator(gridSize, seed);
+        switch (style) {
+            case BACKTRACKER: generator.backtracker(); break;
+            case KRUSKAL:     generator.kruskal(); break;
+            case WILSON:      generator.wilson(); break;
+            case ROOMS:       generator.rooms(); break;
+            default:          generator.caves(); break;
+        }
+        
+        int start = generator.firstOpen();
+        int end = generator.lastOpen();
+        GridFile file = GridFile.fromWalls(gridSize, generator.walls,
+            start / gridSize, start % gridSize, end / gridSize, end % gridSize);
+        file.setSeed(seed);
+        return file;
+    }
+    
+    // --- Perfect mazes: maze cell i = mx * m + my sits at grid cell (2 mx + 1, 2 my + 1) ---
+    
+    private int mazeSize() {
+        return (gridSize - 1) / 2;
+    }
+    
+    private int mazeCell(int i) {
+        int m = mazeSize();
+        return (2 * (i / m) + 1) * gridSize + 2 * (i % m) + 1;
+    }
+    
+    /**
+     * Fills the grid with walls except for the maze cells; passages are carved after.
+     */
+    private void openMazeCells() {
+        Arrays.fill(walls, -1L);
+        for (int x = 1; x < gridSize - 1; x += 2) {
+            for (int y = 1; y < gridSize - 1; y += 2) {
+                open(x * gridSize + y);
+            }
+        }
+    }
+    
+    /**
+     * Opens the wall cell between two adjacent maze cells.
+     */
+    private void carvePassage(int a, int b) {
+        open((mazeCell(a) + mazeCell(b)) >>> 1);
+    }
+    
+    private void backtracker() {
+        openMazeCells();
+        spanningTree(mazeSize(), this::carvePassage);
+    }
+    
+    /**
+     * Random spanning tree of an m x m lattice by iterative depth-first search, reporting
+     * each tree edge to link (the lattice cell index is i * m + j).
+     */
+    private void spanningTree(int m, Link link) {
+        boolean[] visited = new boolean[m * m];
+        int[] stack = new int[m * m];
+        int[] options = new int[4];
+        int first = random.nextInt(m * m);
+        visited[first] = true;
+        stack[0] = first;
+        int top = 1;
+        while (top > 0) {
+            int cell = stack[top - 1];
+            int i = cell / m;
+            int j = cell % m;
+            int count = 0;
+            if (i > 0 && !visited[cell - m]) options[count++] = cell - m;
+            if (i < m - 1 && !visited[cell + m]) options[count++] = cell + m;
+            if (j > 0 && !visited[cell - 1]) options[count++] = cell - 1;
+            if (j < m - 1 && !visited[cell + 1]) options[count++] = cell + 1;
+            if (count == 0) {
+                top--;
+                continue;
+            }
+            int next = options[count == 1 ? 0 : random.nextInt(count)];
+            link.connect(cell, next);
+            visited[next] = true;
+            stack[top++] = next;
+        }
+    }
+    
+    private void kruskal() {
+        openMazeCells();
+        int m = mazeSize();
+        int cells = m * m;
+        
+        // Edge 2c joins c to the cell below it (+1), edge 2c + 1 to the cell right of it (+m)
+        int[] edges = new int[2 * cells];
+        int edgeCount = 0;
+        for (int c = 0; c < cells; c++) {
+            if (c % m < m - 1) edges[edgeCount++] = 2 * c;
+            if (c / m < m - 1) edges[edgeCount++] = 2 * c + 1;
+        }
+        
+        // Union-find: a root holds minus the size of its set
+        int[] parent = new int[cells];
+        Arrays.fill(parent, -1);
+        
+        // Shuffle first, then join: the two loops overlap their cache misses better than one
+        for (int e = edgeCount - 1; e > 0; e--) {
+            int pick = random.nextInt(e + 1);
+            int edge = edges[pick];
+            edges[pick] = edges[e];
+            edges[e] = edge;
+        }
+        
+        int joined = 0;
+        for (int e = 0; e < edgeCount && joined < cells - 1; e++) {
+            int edge = edges[e];
+            int a = edge >>> 1;
+            int b = (edge & 1) == 0 ? a + 1 : a + m;
+            int rootA = find(parent, a);
+            int rootB = find(parent, b);
+            if (rootA != rootB) {
+                if (parent[rootA] > parent[rootB]) {
+                    int smaller = rootA;
+                    rootA = rootB;
+                    rootB = smaller;
+                }
+                parent[rootA] += parent[rootB];
+                parent[rootB] = rootA;
+                open(mazeCell(a) + ((edge & 1) == 0 ? 1 : gridSize));
+                joined++;
+            }
+        }
+    }
+    
+    /**
+     * Union-find root with path halving.
+     */
+    private static int find(int[] parent, int cell) {
+        while (parent[cell] >= 0) {
+            int up = parent[cell];
+            if (parent[up] >= 0) {
+                parent[cell] = parent[up];
+            }
+            cell = up;
+        }
+        return cell;
+    }
+    
+    private void wilson() {
+        openMazeCells();
+        int m = mazeSize();
+        
+        // The lattice with a ring of border cells, so a walk needs no bounds checks:
+        // lattice cell (i, j) is (i + 1) * stride + j + 1
+        int stride = m + 2;
+        int[] steps = {-stride, stride, -1, 1};
+        
+        // Direction the walk last left each cell by, or IN_TREE / BORDER
+        byte[] exit = new byte[stride * stride];
+        for (int k = 0; k < stride; k++) {
+            exit[k] = BORDER;
+            exit[(stride - 1) * stride + k] = BORDER;
+            exit[k * stride] = BORDER;
+            exit[k * stride + stride - 1] = BORDER;
+        }
+        int root = (1 + random.nextInt(m)) * stride + 1 + random.nextInt(m);
+        exit[root] = IN_TREE;
+        
+        long bits = 0;
+        int bitsLeft = 0;
+        for (int origin = stride + 1; origin < stride * (stride - 1); origin++) {
+            if (exit[origin] < 0) continue;
+            
+            // Random walk until the tree is hit; revisiting a cell overwrites its exit,
+            // which erases the loop. Directions take two bits of a random long each.
+            int cell = origin;
+            while (exit[cell] != IN_TREE) {
+                if (bitsLeft == 0) {
+                    bits = random.nextLong();
+                    bitsLeft = 32;
+                }
+                int direction = (int) bits & 3;
+                bits >>>= 2;
+                bitsLeft--;
+                int next = cell + steps[direction];
+                if (exit[next] == BORDER) continue;
+                exit[cell] = (byte) direction;
+                cell = next;
+            }
+            
+            // Add the loop-erased path to the tree
+            for (cell = origin; exit[cell] != IN_TREE; ) {
+                int next = cell + steps[exit[cell]];
+                exit[cell] = IN_TREE;
+                open((wilsonCell(cell, stride) + wilsonCell(next, stride)) >>> 1);
+                cell = next;
+            }
+        }
+    }
+    
+    /**
+     * Grid cell of a cell of the padded lattice wilson() walks on.
+     */
+    private int wilsonCell(int cell, int stride) {
+        return (2 * (cell / stride) - 1) * gridSize + 2 * (cell % stride) - 1;
+    }
+    
+    // --- Rooms and corridors ---
+    
+    private void rooms() {
+        Arrays.fill(walls, -1L);
+        int blocks = gridSize / ROOM_BLOCK;
+        int[] centerX = new int[blocks * blocks];
+        int[] centerY = new int[blocks * blocks];
+        
+        // One room per block, with at least one wall cell between it and the block's edge
+        int inside = ROOM_BLOCK - 2;
+        for (int b = 0; b < blocks * blocks; b++) {
+            int width = 3 + random.nextInt(inside - 2);
+            int height = 3 + random.nextInt(inside - 2);
+            int x0 = (b / blocks) * ROOM_BLOCK + 1 + random.nextInt(inside - width + 1);
+            int y0 = (b % blocks) * ROOM_BLOCK + 1 + random.nextInt(inside - height + 1);
+            for (int x = x0; x < x0 + width; x++) {
+                openRun(x, y0, y0 + height);
+            }
+            centerX[b] = x0 + random.nextInt(width);
+            centerY[b] = y0 + random.nextInt(height);
+        }
+        
+        Link corridor = (a, b) -> {
+            // Horizontal leg at a's row, then vertical leg at b's column; both stay in the two blocks
+            for (int x = Math.min(centerX[a], centerX[b]); x <= Math.max(centerX[a], centerX[b]); x++) {
+                open(x * gridSize + centerY[a]);
+            }
+            openRun(centerX[b], Math.min(centerY[a], centerY[b]), Math.max(centerY[a], centerY[b]) + 1);
+        };
+        spanningTree(blocks, corridor);
+        for (int b = 0; b < blocks * blocks; b++) {
+            if (b / blocks < blocks - 1 && random.nextDouble() < EXTRA_CORRIDOR) corridor.connect(b, b + blocks);
+            if (b % blocks < blocks - 1 && random.nextDouble() < EXTRA_CORRIDOR) corridor.connect(b, b + 1);
+        }
+    }
+    
+    // --- Cellular automaton caves ---
+    
+    private void caves() {
+        int n = gridSize;
+        
+        // The cells with a ring of walls around them: cell (x, y) is (x + 1) * stride + y + 1
+        int stride = n + 2;
+        byte[] wall = new byte[stride * stride];
+        Arrays.fill(wall, (byte) 1);
+        
+        // Seven random bits per cell, nine cells per draw
+        long bits = 0;
+        int bitsLeft = 0;
+        for (int x = 0; x < n; x++) {
+            int row = (x + 1) * stride + 1;
+            for (int cell = row; cell < row + n; cell++) {
+                if (bitsLeft == 0) {
+                    bits = random.nextLong();
+                    bitsLeft = 9;
+                }
+                wall[cell] = (byte) ((bits & 127) < CAVE_NOISE ? 1 : 0);
+                bits >>>= 7;
+                bitsLeft--;
+            }
+        }
+        
+        // 3x3 wall count as two 1D sums: along y into column, then along x.
+        // The border rows of column are never written and count three walls.
+        byte[] column = new byte[stride * stride];
+        Arrays.fill(column, (byte) 3);
+        for (int pass = 0; pass < CAVE_PASSES; pass++) {
+            for (int x = 0; x < n; x++) {
+                int row = (x + 1) * stride + 1;
+                for (int cell = row; cell < row + n; cell++) {
+                    column[cell] = (byte) (wall[cell - 1] + wall[cell] + wall[cell + 1]);
+                }
+            }
+            for (int x = 0; x < n; x++) {
+                int row = (x + 1) * stride + 1;
+                for (int cell = row; cell < row + n; cell++) {
+                    int count = column[cell - stride] + column[cell] + column[cell + stride];
+                    wall[cell] = (byte) (count >= CAVE_WALL_THRESHOLD ? 1 : 0);
+                }
+            }
+        }
+        
+        // Only the largest open region is kept
+        Arrays.fill(walls, -1L);
+        int[] region = new int[n * n];
+        int size = largestRegion(wall, stride, region);
+        for (int i = 0; i < size; i++) {
+            int cell = region[i];
+            open((cell / stride - 1) * n + cell % stride - 1);
+        }
+    }
+    
+    /**
+     * Finds the largest open region (4-connected) of a wall-padded map by flooding every
+     * region in turn; the flood marks cells it passes in wall. The region's cells end up
+     * in largest, their number is returned.
+     */
+    private static int largestRegion(byte[] wall, int stride, int[] largest) {
+        // The queue of each flood holds its region afterwards; the larger of the two is kept
+        int[] queue = new int[largest.length];
+        int[] best = largest;
+        int bestSize = 0;
+        for (int cell = stride + 1; cell < wall.length - stride; cell++) {
+            if (wall[cell] != 0) continue;
+            int size = flood(wall, stride, cell, queue);
+            if (size > bestSize) {
+                int[] swap = best;
+                best = queue;
+                queue = swap;
+                bestSize = size;
+            }
+        }
+        if (bestSize == 0) {
+            // Solid rock: keep one cell so the map still has a start and an end
+            best[0] = (stride / 2) * stride + stride / 2;
+            bestSize = 1;
+        }
+        if (best != largest) {
+            System.arraycopy(best, 0, largest, 0, bestSize);
+        }
+        return bestSize;
+    }
+    
+    /**
+     * Breadth-first flood of the open region around start; returns its size.
+     */
+    private static int flood(byte[] wall, int stride, int start, int[] queue) {
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        wall[start] = FLOODED;
+        while (head < tail) {
+            int cell = queue[head++];
+            tail = visit(wall, queue, tail, cell - stride);
+            tail = visit(wall, queue, tail, cell + stride);
+            tail = visit(wall, queue, tail, cell - 1);
+            tail = visit(wall, queue, tail, cell + 1);
+        }
+        return tail;
+    }
+    
+    private static int visit(byte[] wall, int[] queue, int tail, int cell) {
+        if (wall[cell] == 0) {
+            wall[cell] = FLOODED;
+            queue[tail++] = cell;
+        }
+        return tail;
+    }
+    
+    // --- Bitmap access ---
+    
+    private void open(int cell) {
+        walls[cell >>> 6] &= ~(1L << cell);
+    }
+    
+    /**
+     * Opens cells y0 .. y1 - 1 of column x, a word at a time where possible.
+     */
+    private void openRun(int x, int y0, int y1) {
+        int from = x * gridSize + y0;
+        int to = x * gridSize + y1;
+        while (from < to) {
+            int word = from >>> 6;
+            int bits = Math.min(64 - (from & 63), to - from);
+            long mask = bits == 64 ? -1L : ((1L << bits) - 1) << from;
+            walls[word] &= ~mask;
+            from += bits;
+        }
+    }
+    
+    private int firstOpen() {
+        for (int word = 0; word < walls.length; word++) {
+            if (walls[word] != -1L) {
+                return word * 64 + Long.numberOfTrailingZeros(~walls[word]);
+            }
+        }
+        throw new IllegalStateException("The map has no open cell");
+    }
+    
+    private int lastOpen() {
+        int cells = gridSize * gridSize;
+        for (int word = walls.length - 1; word >= 0; word--) {
+            long open = ~walls[word];
+            if (word == walls.length - 1 && (cells & 63) != 0) {
+                open &= (1L << cells) - 1; // Ignore the bits past the last cell
+            }
+            if (open != 0) {
+                return word * 64 + 63 - Long.numberOfLeadingZeros(open);
+            }
+        }
+        throw new IllegalStateException("The map has no open cell");
+    }
+    
+    private interface Link {
+        void connect(int a, int b);
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java MapGenerator <backtracker|kruskal|wilson|rooms|caves> <size> [seed] [file.grid]");
+            System.exit(1);
+        }
+        Style style = Style.fromName(args[0]);
+        int size = Integer.parseInt(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        
+        long begin = System.nanoTime();
+        GridFile file = generate(style, size, seed);
+        long millis = (System.nanoTime() - begin) / 1_000_000;
+        
+        long open = 0;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (!file.isWall(x, y)) open++;
+            }
+        }
+        System.out.printf(Locale.ROOT, "%s %dx%d seed %d: %d ms, %.1f%% open, start (%d, %d), end (%d, %d)%n",
+            style, size, size, seed, millis, 100.0 * open / ((long) size * size),
+            file.getStartX(), file.getStartY(), file.getEndX(), file.getEndY());
+        if (args.length > 3) {
+            file.save(Paths.get(args[3]));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+import java.util.Random;
+
+/**
+ * Generates random mazes on a Node grid of any size.
+ *
+ * Used by the visualizer's "Random Maze" button and by the headless BatchRunner.
+ * Passing a seeded Random makes the maze reproducible.
+ */
+public class MazeGenerator {
+    private final Node[][] grid;
+    private final int gridSize;
+    private final Node startNode;
+    private final Node endNode;
+    private final Random random;
+    
+    public MazeGenerator(Node[][] grid, int gridSize, Node startNode, Node endNode, Random random) {
+        this.grid = grid;
+        this.gridSize = gridSize;
+        this.startNode = startNode;
+        this.endNode = endNode;
+        this.random = random;
+    }
+    
+    /**
+     * Builds a fresh grid of EMPTY nodes with start and end at the visualizer's default spots.
+     */
+    public static Node[][] createGrid(int gridSize) {
+        Node[][] grid = new Node[gridSize][gridSize];
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                grid[x][y] = new Node(x, y);
+            }
+        }
+        grid[5][5].setState(Node.State.START);
+        grid[gridSize - 6][gridSize - 6].setState(Node.State.END);
+        return grid;
+    }
+    
+    /**
+     * Generates a random maze with walls (the grid is expected to be empty)
+     */
+    public void generate() {
+        // Random density between 20% and 35%
+        double wallDensity = 0.20 + random.nextDouble() * 0.15;
+        
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                Node node = grid[x][y];
+                
+                // Don't place walls on start or end nodes
+                if (node != startNode && node != endNode) {
+                    if (random.nextDouble() < wallDensity) {
+                        node.setState(Node.State.WALL);
+                    }
+                }
+            }
+        }
+        
+        // Optional: Add some patterns for more interesting mazes
+        addRandomPatterns();
+    }
+    
+    /**
+     * Adds random wall patterns for more interesting mazes
+     */
+    private void addRandomPatterns() {
+        int numPatterns = random.nextInt(3) + 2; // 2-4 patterns
+        
+        for (int i = 0; i < numPatterns; i++) {
+            int pattern = random.nextInt(3);
+            
+            switch (pattern) {
+                case 0: // Horizontal line
+                    addHorizontalLine();
+                    break;
+                case 1: // Vertical line
+                    addVerticalLine();
+                    break;
+                case 2: // L-shape
+                    addLShape();
+                    break;
+            }
+        }
+    }
+    
+    private void addHorizontalLine() {
+        int y = random.nextInt(gridSize);
+        int startX = random.nextInt(gridSize / 2);
+        int length = random.nextInt(gridSize / 3) + 3;
+        
+        for (int x = startX; x < Math.min(startX + length, gridSize); x++) {
+            Node node = grid[x][y];
+            if (node != startNode && node != endNode) {
+                node.setState(Node.State.WALL);
+            }
+        }
+    }
+    
+    private void addVerticalLine() {
+        int x = random.nextInt(gridSize);
+        int startY = random.nextInt(gridSize / 2);
+        int length = random.nextInt(gridSize / 3) + 3;
+        
+        for (int y = startY; y < Math.min(startY + length, gridSize); y++) {
+            Node node = grid[x][y];
+            if (node != startNode && node != endNode) {
+                node.setState(Node.State.WALL);
+            }
+        }
+    }
+    
+    private void addLShape() {
+        int x = random.nextInt(gridSize - 5) + 2;
+        int y = random.nextInt(gridSize - 5) + 2;
+        int size = random.nextInt(4) + 3;
+        
+        // Horizontal part
+        for (int i = 0; i < size; i++) {
+            if (x + i < gridSize) {
+                Node node = grid[x + i][y];
+                if (node != startNode && node != endNode) {
+                    node.setState(Node.State.WALL);
+                }
+            }
+        }
+        
+        // Vertical part
+        for (int i = 0; i < size; i++) {
+            if (y + i < gridSize) {
+                Node node = grid[x][y + i];
+                if (node != startNode && node != endNode) {
+                    node.setState(Node.State.WALL);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+/**
+ * Grid map in the MovingAI benchmark format (https://movingai.com/benchmarks/formats.html):
+ *
+ *   type octile
+ *   height H
+ *   width W
+ *   map
+ *   <H lines of W characters>
+ *
+ * '.', 'G' and 'S' are passable; '@', 'O', 'T' and 'W' are treated as walls
+ * (water is only passable from water, which a single wall flag cannot express).
+ */
+public class MovingAIMap {
+    private final String name;
+    private final int width;
+    private final int height;
+    private final boolean[][] passable; // [x][y], x = column, y = row
+    
+    private MovingAIMap(String name, int width, int height, boolean[][] passable) {
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.passable = passable;
+    }
+    
+    /**
+     * Reads a .map file.
+     */
+    public static MovingAIMap load(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            int width = -1;
+            int height = -1;
+            
+            // Header: "key value" lines up to the "map" line
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts[0].equals("map")) break;
+                if (parts[0].equals("height")) height = Integer.parseInt(parts[1]);
+                if (parts[0].equals("width")) width = Integer.parseInt(parts[1]);
+            }
+            if (width <= 0 || height <= 0) {
+                throw new IOException(path + ": missing width/height header");
+            }
+            
+            boolean[][] passable = new boolean[width][height];
+            for (int y = 0; y < height; y++) {
+                line = reader.readLine();
+                if (line == null || line.length() < width) {
+                    throw new IOException(path + ": row " + y + " is missing or shorter than " + width);
+                }
+                for (int x = 0; x < width; x++) {
+                    char c = line.charAt(x);
+                    passable[x][y] = c == '.' || c == 'G' || c == 'S';
+                }
+            }
+            return new MovingAIMap(path.getFileName().toString(), width, height, passable);
+        }
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int getWidth() {
+        return width;
+    }
+    
+    public int getHeight() {
+        return height;
+    }
+    
+    public boolean isPassable(int x, int y) {
+        return passable[x][y];
+    }
+    
+    /**
+     * Side of the square grid the map is loaded into (the pathfinding grid is square).
+     */
+    public int getGridSize() {
+        return Math.max(width, height);
+    }
+    
+    /**
+     * Builds a square Node grid; cells outside a non-square map become walls.
+     */
+    public Node[][] toGrid() {
+        int gridSize = getGridSize();
+        Node[][] grid = new Node[gridSize][gridSize];
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                Node node = new Node(x, y);
+                if (x >= width || y >= height || !passable[x][y]) {
+                    node.setState(Node.State.WALL);
+                }
+                grid[x][y] = node;
+            }
+        }
+        return grid;
+    }
+}
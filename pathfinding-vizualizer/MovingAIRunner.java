@@ -0,0 +1,317 @@
+import java.io.*;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Runs a MovingAI scenario file (.scen) against the selected algorithms and checks
+ * every path against the reference optimum.
+ *
+ * Usage:
+ *   java MovingAIRunner <file.scen> [--maps-dir DIR] [--algorithms "A*,Dijkstra,..."]
+ *                       [--buckets FROM-TO] [--out results.csv] [--connectivity 4|8|8-cut]
+ *
+ * The lengths stored in .scen files are octile distances of 8-connected paths without
+ * corner cutting, while the searches move in four directions unless --connectivity says
+ * otherwise (see Connectivity; only A*, Dijkstra and Theta* follow it). Each query is
+ * checked against two references:
+ *   - the path can never be shorter than the scenario's octile optimum (unless it
+ *     cuts corners), and
+ *   - algorithms that claim optimality must match the optimum of their own moves
+ *     (BFS with four directions, Dijkstra with eight).
+ * With --connectivity 8 that optimum must also equal the scenario's. Theta* paths may
+ * be shorter than both, being any-angle. Any violation is reported as an error and
+ * makes the runner exit with status 2.
+ */
+public class MovingAIRunner {
+    
+    private static final String CSV_HEADER = "bucket,map,startX,startY,goalX,goalY,algorithm,success,"
+        + "timeMicros,expansions,moves,optimalMoves,cost,optimalCost,scenarioOptimal,valid";
+    
+    // Tolerance for the octile lengths, which are printed with limited precision
+    private static final double LENGTH_EPSILON = 1e-3;
+    
+    private Path scenarioFile;
+    private Path mapsDir;
+    private int firstBucket = 0;
+    private int lastBucket = Integer.MAX_VALUE;
+    private String out = "-";
+    private Connectivity connectivity = Connectivity.FOUR;
+    private List<SearchAlgorithm> algorithms = Arrays.asList(SearchAlgorithm.values());
+    
+    // Maps referenced by the scenario, loaded once
+    private final Map<String, MovingAIMap> maps = new HashMap<>();
+    
+    // Per-algorithm totals: queries, solved, micros, expansions, errors
+    private final Map<SearchAlgorithm, long[]> totals = new EnumMap<>(SearchAlgorithm.class);
+    
+    public static void main(String[] args) throws Exception {
+        MovingAIRunner runner = new MovingAIRunner();
+        try {
+            runner.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("Usage: java MovingAIRunner <file.scen> [--maps-dir DIR]"
+                + " [--algorithms \"A*,Dijkstra\"] [--buckets FROM-TO] [--out file.csv] [--connectivity 4|8|8-cut]");
+            System.exit(1);
+        }
+        long errors = runner.run();
+        System.exit(errors == 0 ? 0 : 2);
+    }
+    
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                scenarioFile = Paths.get(arg);
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--maps-dir":   mapsDir = Paths.get(value); break;
+                case "--out":        out = value; break;
+                case "--connectivity": connectivity = Connectivity.fromName(value); break;
+                case "--buckets":
+                    String[] range = value.split("-");
+                    firstBucket = Integer.parseInt(range[0]);
+                    lastBucket = range.length > 1 ? Integer.parseInt(range[1]) : firstBucket;
+                    break;
+                case "--algorithms":
+                    algorithms = new ArrayList<>();
+                    for (String name : value.split(",")) {
+                        algorithms.add(SearchAlgorithm.fromName(name));
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (scenarioFile == null) {
+            throw new IllegalArgumentException("No scenario file given");
+        }
+        if (mapsDir == null) {
+            Path parent = scenarioFile.toAbsolutePath().getParent();
+            mapsDir = parent != null ? parent : Paths.get(".");
+        }
+    }
+    
+    /**
+     * Runs every scenario in the selected buckets and returns the number of validation errors.
+     */
+    private long run() throws IOException {
+        for (SearchAlgorithm algorithm : algorithms) {
+            totals.put(algorithm, new long[5]);
+        }
+        
+        List<MovingAIScenario> scenarios = MovingAIScenario.load(scenarioFile);
+        
+        PrintWriter writer = out.equals("-")
+            ? new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+            : new PrintWriter(new BufferedWriter(new FileWriter(out, StandardCharsets.UTF_8)));
+        writer.println(CSV_HEADER);
+        
+        long startNanos = System.nanoTime();
+        int executed = 0;
+        
+        // Scenarios are grouped by map in practice, so keep one pathfinder per map
+        MovingAIMap currentMap = null;
+        Node[][] grid = null;
+        PathfindingAlgorithm pathfinder = null;
+        try {
+            for (MovingAIScenario scenario : scenarios) {
+                if (scenario.getBucket() < firstBucket || scenario.getBucket() > lastBucket) continue;
+                
+                MovingAIMap map = mapFor(scenario);
+                if (map != currentMap) {
+                    if (pathfinder != null) pathfinder.close();
+                    currentMap = map;
+                    grid = map.toGrid();
+                    pathfinder = new PathfindingAlgorithm(grid, map.getGridSize());
+                    pathfinder.setConnectivity(connectivity);
+                    if (algorithms.contains(SearchAlgorithm.SUBGOAL_GRAPH)) {
+                        pathfinder.setSubgoalGraph(new SubgoalGraph(grid, map.getGridSize()));
+                    }
+                }
+                runScenario(scenario, grid, pathfinder, writer);
+                executed++;
+            }
+        } finally {
+            if (pathfinder != null) pathfinder.close();
+            writer.flush();
+            if (!out.equals("-")) {
+                writer.close();
+            }
+        }
+        
+        return printSummary(executed, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+    
+    private void runScenario(MovingAIScenario scenario, Node[][] grid, PathfindingAlgorithm pathfinder,
+                             PrintWriter writer) {
+        Node start = grid[scenario.getStartX()][scenario.getStartY()];
+        Node goal = grid[scenario.getGoalX()][scenario.getGoalY()];
+        
+        PathfindingResult reference = connectivity == Connectivity.FOUR
+            ? pathfinder.bfs(start, goal) : pathfinder.dijkstra(start, goal);
+        int optimalMoves = reference.isSuccess() ? moves(reference, start, goal) : -1;
+        double optimalCost = reference.isSuccess() ? reference.getCost() : -1;
+        
+        StringBuilder rows = new StringBuilder();
+        for (SearchAlgorithm algorithm : algorithms) {
+            long begin = System.nanoTime();
+            PathfindingResult result = algorithm.run(pathfinder, start, goal);
+            long micros = (System.nanoTime() - begin) / 1000;
+            
+            int moves = result.isSuccess() ? moves(result, start, goal) : -1;
+            String error = validate(scenario, algorithm, result, optimalCost, grid, start, goal);
+            if (error != null) {
+                System.err.printf("bucket %d (%d,%d)->(%d,%d) %s: %s%n", scenario.getBucket(),
+                    scenario.getStartX(), scenario.getStartY(), scenario.getGoalX(), scenario.getGoalY(),
+                    algorithm.getDisplayName(), error);
+            }
+            
+            rows.append(scenario.getBucket()).append(',').append(scenario.getMapName()).append(',')
+                .append(scenario.getStartX()).append(',').append(scenario.getStartY()).append(',')
+                .append(scenario.getGoalX()).append(',').append(scenario.getGoalY()).append(',')
+                .append('"').append(algorithm.getDisplayName()).append('"').append(',')
+                .append(result.isSuccess()).append(',').append(micros).append(',')
+                .append(result.getNodesVisited()).append(',').append(moves).append(',')
+                .append(optimalMoves).append(',')
+                .append(String.format(Locale.ROOT, "%.8f", result.getCost())).append(',')
+                .append(String.format(Locale.ROOT, "%.8f", optimalCost)).append(',')
+                .append(String.format(Locale.ROOT, "%.8f", scenario.getOptimalLength())).append(',')
+                .append(error == null).append('\n');
+            
+            long[] total = totals.get(algorithm);
+            total[0]++;
+            total[1] += result.isSuccess() ? 1 : 0;
+            total[2] += micros;
+            total[3] += result.getNodesVisited();
+            total[4] += error == null ? 0 : 1;
+        }
+        writer.print(rows);
+    }
+    
+    /**
+     * Checks one result against the references; returns a description of the problem or null.
+     */
+    private String validate(MovingAIScenario scenario, SearchAlgorithm algorithm, PathfindingResult result,
+                            double optimalCost, Node[][] grid, Node start, Node goal) {
+        // Every MovingAI scenario is solvable, so a failed reference means the map was read wrongly
+        if (optimalCost < 0) {
+            return "no path exists (reference optimum " + scenario.getOptimalLength() + ")";
+        }
+        if (connectivity == Connectivity.EIGHT && Math.abs(optimalCost - scenario.getOptimalLength()) > LENGTH_EPSILON) {
+            return "8-connected optimum " + optimalCost + " differs from the scenario's " + scenario.getOptimalLength();
+        }
+        if (!result.isSuccess()) {
+            // Memory-bounded and anytime searches may legitimately give up
+            return algorithm.isOptimal() && algorithm != SearchAlgorithm.IDA_STAR
+                && algorithm != SearchAlgorithm.SMA_STAR ? "no path found" : null;
+        }
+        
+        // Theta* passes exactly through corners even with four directions
+        Connectivity moves = algorithm.usesConnectivity() ? connectivity : Connectivity.FOUR;
+        if (algorithm == SearchAlgorithm.THETA_STAR && moves == Connectivity.FOUR) {
+            moves = Connectivity.EIGHT;
+        }
+        String routeError = checkRoute(result.getPath(), grid, start, goal, moves);
+        if (routeError != null) {
+            return routeError;
+        }
+        if (algorithm == SearchAlgorithm.THETA_STAR) {
+            return null;
+        }
+        double cost = result.getCost();
+        boolean cutsCorners = moves == Connectivity.EIGHT_CUT_CORNERS;
+        if (!cutsCorners && cost + LENGTH_EPSILON < scenario.getOptimalLength()) {
+            return "path of cost " + cost + " is shorter than the octile optimum " + scenario.getOptimalLength();
+        }
+        if (cost + LENGTH_EPSILON < optimalCost) {
+            return "path of cost " + cost + " is shorter than the optimum " + optimalCost;
+        }
+        boolean sameMoves = algorithm.usesConnectivity() || connectivity == Connectivity.FOUR;
+        if (algorithm.isOptimal() && sameMoves && Math.abs(cost - optimalCost) > LENGTH_EPSILON) {
+            return "path of cost " + cost + ", optimum is " + optimalCost;
+        }
+        return null;
+    }
+    
+    /**
+     * Number of moves of a found path (the route lists start and goal too).
+     */
+    private static int moves(PathfindingResult result, Node start, Node goal) {
+        return start == goal ? 0 : result.getPath().remaining() - 1;
+    }
+    
+    /**
+     * Checks that the returned route leads from start to goal through open, adjacent cells,
+     * moving diagonally only as the given connectivity allows.
+     */
+    private static String checkRoute(IntBuffer path, Node[][] grid, Node start, Node goal, Connectivity moves) {
+        int gridSize = grid.length;
+        int length = path.remaining();
+        if (length == 0 || path.get(0) != start.getX() * gridSize + start.getY()
+                || path.get(length - 1) != goal.getX() * gridSize + goal.getY()) {
+            return "route does not connect start and goal";
+        }
+        for (int i = 0; i < length; i++) {
+            int x = path.get(i) / gridSize;
+            int y = path.get(i) % gridSize;
+            if (!grid[x][y].isWalkable()) {
+                return "route crosses the wall at (" + x + "," + y + ")";
+            }
+            if (i == 0) continue;
+            int previousX = path.get(i - 1) / gridSize;
+            int previousY = path.get(i - 1) % gridSize;
+            int dx = Math.abs(previousX - x);
+            int dy = Math.abs(previousY - y);
+            if (dx > 1 || dy > 1 || dx + dy == 0) {
+                return "route jumps to (" + x + "," + y + ")";
+            }
+            if (dx + dy == 2 && !moves.allowsDiagonal(grid[previousX][y].isWalkable(), grid[x][previousY].isWalkable())) {
+                return "route moves diagonally past a wall to (" + x + "," + y + ")";
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Loads (once) the map a scenario refers to and checks its dimensions.
+     */
+    private MovingAIMap mapFor(MovingAIScenario scenario) throws IOException {
+        MovingAIMap map = maps.get(scenario.getMapName());
+        if (map == null) {
+            // Scenario files name maps either relative to the benchmark root or by file name only
+            Path path = mapsDir.resolve(scenario.getMapName());
+            if (!Files.exists(path)) {
+                path = mapsDir.resolve(Paths.get(scenario.getMapName()).getFileName());
+            }
+            map = MovingAIMap.load(path);
+            maps.put(scenario.getMapName(), map);
+        }
+        if (map.getWidth() != scenario.getMapWidth() || map.getHeight() != scenario.getMapHeight()) {
+            throw new IOException(scenario.getMapName() + " is " + map.getWidth() + "x" + map.getHeight()
+                + " but the scenario expects " + scenario.getMapWidth() + "x" + scenario.getMapHeight());
+        }
+        return map;
+    }
+    
+    private long printSummary(int executed, long elapsedMillis) {
+        System.err.printf("%d scenarios from %s in %d ms%n", executed, scenarioFile.getFileName(), elapsedMillis);
+        System.err.printf("%-20s %10s %12s %14s %8s%n", "Algorithm", "Solved", "Avg time us", "Avg expansions", "Errors");
+        long errors = 0;
+        for (SearchAlgorithm algorithm : algorithms) {
+            long[] total = totals.get(algorithm);
+            long queries = Math.max(total[0], 1);
+            System.err.printf("%-20s %10d %12.1f %14.1f %8d%n", algorithm.getDisplayName(), total[1],
+                (double) total[2] / queries, (double) total[3] / queries, total[4]);
+            errors += total[4];
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,102 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * One query of a MovingAI .scen file:
+ *
+ *   version 1
+ *   bucket  map  mapWidth  mapHeight  startX  startY  goalX  goalY  optimalLength
+ *
+ * Fields are tab separated. The optimal length is the octile distance of the
+ * shortest 8-connected path (diagonal = sqrt(2), no corner cutting).
+ */
+public class MovingAIScenario {
+    private final int bucket;
+    private final String mapName;
+    private final int mapWidth;
+    private final int mapHeight;
+    private final int startX;
+    private final int startY;
+    private final int goalX;
+    private final int goalY;
+    private final double optimalLength;
+    
+    public MovingAIScenario(int bucket, String mapName, int mapWidth, int mapHeight,
+                            int startX, int startY, int goalX, int goalY, double optimalLength) {
+        this.bucket = bucket;
+        this.mapName = mapName;
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+        this.startX = startX;
+        this.startY = startY;
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.optimalLength = optimalLength;
+    }
+    
+    /**
+     * Reads every scenario of a .scen file, in file order.
+     */
+    public static List<MovingAIScenario> load(Path path) throws IOException {
+        List<MovingAIScenario> scenarios = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("version")) continue;
+                
+                String[] fields = line.split("\\s+");
+                if (fields.length < 9) {
+                    throw new IOException(path + ":" + lineNumber + ": expected 9 fields, got " + fields.length);
+                }
+                scenarios.add(new MovingAIScenario(
+                    Integer.parseInt(fields[0]), fields[1],
+                    Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+                    Integer.parseInt(fields[4]), Integer.parseInt(fields[5]),
+                    Integer.parseInt(fields[6]), Integer.parseInt(fields[7]),
+                    Double.parseDouble(fields[8])));
+            }
+        }
+        return scenarios;
+    }
+    
+    public int getBucket() {
+        return bucket;
+    }
+    
+    public String getMapName() {
+        return mapName;
+    }
+    
+    public int getMapWidth() {
+        return mapWidth;
+    }
+    
+    public int getMapHeight() {
+        return mapHeight;
+    }
+    
+    public int getStartX() {
+        return startX;
+    }
+    
+    public int getStartY() {
+        return startY;
+    }
+    
+    public int getGoalX() {
+        return goalX;
+    }
+    
+    public int getGoalY() {
+        return goalY;
+    }
+    
+    public double getOptimalLength() {
+        return optimalLength;
+    }
+}
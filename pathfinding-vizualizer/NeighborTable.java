@@ -0,0 +1,135 @@
+/**
+ * Precomputed moves of every cell, so searches generate neighbors without bounds or
+ * wall checks.
+ *
+ * Each cell has a byte mask with one bit per allowed move, in the order up, right,
+ * down, left (the order of the 4-connected searches), then the diagonals up-right,
+ * down-right, down-left, up-left. The neighbor reached by move d is the cell index
+ * (x * gridSize + y) plus offset(d). Walls, cells outside the grid and diagonals the
+ * connectivity forbids never appear in a mask, so a search loop only walks the set bits.
+ *
+ * The masks are computed over a copy of the walls padded with one ring of wall cells,
+ * so building them needs no bounds checks either. A table is only valid for the walls,
+ * connectivity and agent size it was built for; it is immutable and can be shared by
+ * concurrent searches.
+ */
+public final class NeighborTable {
+    public static final int MOVES = 8;
+    
+    // Moves: up, right, down, left, up-right, down-right, down-left, up-left
+    private static final int[] DX = {0, 1, 0, -1, 1, 1, -1, -1};
+    private static final int[] DY = {-1, 0, 1, 0, -1, 1, 1, -1};
+    private static final double[] COSTS = {1, 1, 1, 1, Math.sqrt(2), Math.sqrt(2), Math.sqrt(2), Math.sqrt(2)};
+    
+    private final int gridSize;
+    private final Connectivity connectivity;
+    private final int agentSize;
+    private final byte[] masks;     // Indexed by x * gridSize + y
+    private final int[] offsets = new int[MOVES];
+    
+    /**
+     * Moves of a 1x1 agent on the walls of grid.
+     */
+    public NeighborTable(Node[][] grid, int gridSize, Connectivity connectivity) {
+        this(openCells(grid, gridSize), gridSize, connectivity, 1);
+    }
+    
+    /**
+     * Moves of a k x k agent anchored at its top-left cell: it may stand wherever the
+     * clearance map says it fits, and a diagonal move checks the two anchor cells beside
+     * it like walls for a 1x1 agent.
+     */
+    public NeighborTable(ClearanceMap clearance, int agentSize, Connectivity connectivity) {
+        this(fittingCells(clearance, agentSize), clearance.getGridSize(), connectivity, agentSize);
+    }
+    
+    private NeighborTable(boolean[] open, int gridSize, Connectivity connectivity, int agentSize) {
+        this.gridSize = gridSize;
+        this.connectivity = connectivity;
+        this.agentSize = agentSize;
+        this.masks = new byte[gridSize * gridSize];
+        for (int d = 0; d < MOVES; d++) {
+            offsets[d] = DX[d] * gridSize + DY[d];
+        }
+        
+        // Same cells with a ring of walls around them
+        int padded = gridSize + 2;
+        boolean[] ring = new boolean[padded * padded];
+        for (int x = 0; x < gridSize; x++) {
+            System.arraycopy(open, x * gridSize, ring, (x + 1) * padded + 1, gridSize);
+        }
+        int[] paddedOffsets = new int[MOVES];
+        for (int d = 0; d < MOVES; d++) {
+            paddedOffsets[d] = DX[d] * padded + DY[d];
+        }
+        int moves = connectivity.hasDiagonals() ? MOVES : 4;
+        
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                int p = (x + 1) * padded + y + 1;
+                if (!ring[p]) continue;
+                int mask = 0;
+                for (int d = 0; d < moves; d++) {
+                    if (!ring[p + paddedOffsets[d]]) continue;
+                    if (d >= 4 && !connectivity.allowsDiagonal(ring[p + DX[d] * padded], ring[p + DY[d]])) continue;
+                    mask |= 1 << d;
+                }
+                masks[x * gridSize + y] = (byte) mask;
+            }
+        }
+    }
+    
+    /**
+     * Bit d is set if move d is allowed from the cell.
+     */
+    public int moves(int cell) {
+        return masks[cell] & 0xFF;
+    }
+    
+    /**
+     * Cell index difference of move d.
+     */
+    public int offset(int move) {
+        return offsets[move];
+    }
+    
+    /**
+     * Length of move d: 1 straight, √2 diagonally.
+     */
+    public static double cost(int move) {
+        return COSTS[move];
+    }
+    
+    public int getGridSize() {
+        return gridSize;
+    }
+    
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+    
+    public int getAgentSize() {
+        return agentSize;
+    }
+    
+    private static boolean[] openCells(Node[][] grid, int gridSize) {
+        boolean[] open = new boolean[gridSize * gridSize];
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                open[x * gridSize + y] = grid[x][y].isWalkable();
+            }
+        }
+        return open;
+    }
+    
+    private static boolean[] fittingCells(ClearanceMap clearance, int agentSize) {
+        int gridSize = clearance.getGridSize();
+        boolean[] open = new boolean[gridSize * gridSize];
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                open[x * gridSize + y] = clearance.fits(x, y, agentSize);
+            }
+        }
+        return open;
+    }
+}
@@ -0,0 +1,422 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * HDA* (Hash Distributed A*): A* spread over several threads.
+ *
+ * Every cell is owned by one worker, chosen by hashing its index. A worker keeps its
+ * own open list and is the only one that reads or writes g/parent of the cells it
+ * owns, so the shared SearchContext needs no locking. Generated cells that belong to
+ * another worker are batched and sent to its lock-free inbox.
+ *
+ * Because each worker only knows its local minimum f, reaching the goal does not end
+ * the search: the goal cost becomes an incumbent that prunes every node with f at or
+ * above it, and the search ends when no worker has work left and no message is in
+ * flight. The incumbent is then optimal.
+ *
+ * Termination is detected with a single counter of busy workers plus undelivered
+ * batches; it can only reach zero when nobody is able to create new work.
+ */
+public class ParallelAStar implements AutoCloseable {
+    private final Node[][] grid;
+    private final int gridSize;
+    private final int threads;
+    
+    // Worker threads 1..threads-1; worker 0 runs on the calling thread
+    private ExecutorService pool;
+    
+    // Generated nodes are sent in batches of this many (cell, g, parent) triples
+    private static final int BATCH_SIZE = 64;
+    
+    // Same polling cadence as the single-threaded searches
+    private static final int CHECKPOINT_MASK = 0xFF;
+    
+    // Idle workers spin briefly, then park for this long between inbox checks
+    private static final int IDLE_SPINS = 200;
+    private static final long IDLE_PARK_NANOS = 50_000;
+    
+    // Directions: up, right, down, left
+    private static final int[][] DIRECTIONS = {{0, -1}, {1, 0}, {0, 1}, {-1, 0}};
+    
+    // --- State of the current search, published to the workers by pool.submit() ---
+    private SearchContext ctx;
+    private int goalCell;
+    private SearchToken token;
+    private Worker[] workers;
+    private final AtomicInteger incumbent = new AtomicInteger();
+    private final AtomicLong active = new AtomicLong();
+    private final AtomicInteger progress = new AtomicInteger();
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    
+    public ParallelAStar(Node[][] grid, int gridSize, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.grid = grid;
+        this.gridSize = gridSize;
+        this.threads = threads;
+    }
+    
+    public int getThreads() {
+        return threads;
+    }
+    
+    /**
+     * Searches from startCell to goalCell, leaving g, parents and CLOSED flags in ctx
+     * (which must have been begun by the caller). Returns true if a path was found.
+     */
+    public boolean search(SearchContext ctx, int startCell, int goalCell, SearchToken token) {
+        this.ctx = ctx;
+        this.goalCell = goalCell;
+        this.token = token;
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i);
+        }
+        incumbent.set(Integer.MAX_VALUE);
+        active.set(threads); // Every worker starts out busy
+        progress.set(0);
+        done = false;
+        cancelled = false;
+        
+        ctx.update(startCell, 0, SearchContext.NO_PARENT);
+        workers[owner(startCell)].open.push(heuristic(startCell), startCell);
+        
+        if (threads > 1 && pool == null) {
+            pool = Executors.newFixedThreadPool(threads - 1, runnable -> {
+                Thread thread = new Thread(runnable, "hda-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 1; i < threads; i++) {
+            futures.add(pool.submit(workers[i]));
+        }
+        try {
+            workers[0].run();
+        } finally {
+            // Also on failure: never leave helpers running on a context we hand back
+            done = true;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    cancelled = true;
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("HDA* worker failed", e.getCause());
+                }
+            }
+        }
+        return !cancelled && incumbent.get() != Integer.MAX_VALUE;
+    }
+    
+    /**
+     * Whether the last search was stopped by its token before it finished.
+     */
+    public boolean wasCancelled() {
+        return cancelled;
+    }
+    
+    /**
+     * Nodes expanded by each worker in the last search.
+     */
+    public int[] getExpansions() {
+        int[] expansions = new int[threads];
+        for (int i = 0; i < threads; i++) {
+            expansions[i] = workers == null ? 0 : workers[i].expansions;
+        }
+        return expansions;
+    }
+    
+    public int getTotalExpansions() {
+        int total = 0;
+        for (int expansions : getExpansions()) {
+            total += expansions;
+        }
+        return total;
+    }
+    
+    /**
+     * Busiest worker's expansions divided by the mean (1.0 = perfectly balanced).
+     */
+    public double getLoadImbalance() {
+        int total = getTotalExpansions();
+        if (total == 0) return 1.0;
+        int max = 0;
+        for (int expansions : getExpansions()) {
+            max = Math.max(max, expansions);
+        }
+        return (double) max * threads / total;
+    }
+    
+    /**
+     * Per-thread summary of the last search, e.g. for the result dialog.
+     */
+    public String describeLoad() {
+        long messages = 0;
+        if (workers != null) {
+            for (Worker worker : workers) {
+                messages += worker.nodesSent;
+            }
+        }
+        return String.format(Locale.ROOT, "%d threads, expansions per thread %s, load imbalance %.2f, %d nodes sent",
+            threads, Arrays.toString(getExpansions()), getLoadImbalance(), messages);
+    }
+    
+    /**
+     * Stops the worker threads.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+    }
+    
+    /**
+     * Worker that owns a cell; the multiplicative hash spreads neighboring cells
+     * over all workers so the frontier is shared evenly.
+     */
+    private int owner(int cell) {
+        return ((cell * 0x9E3779B1) >>> 16) % threads;
+    }
+    
+    /**
+     * Manhattan distance to the goal.
+     */
+    private int heuristic(int cell) {
+        return Math.abs(cell / gridSize - goalCell / gridSize) + Math.abs(cell % gridSize - goalCell % gridSize);
+    }
+    
+    /**
+     * Lowers the incumbent (best goal cost found so far) to cost if that is an improvement.
+     */
+    private void offerIncumbent(int cost) {
+        int current;
+        while (cost < (current = incumbent.get())) {
+            if (incumbent.compareAndSet(current, cost)) return;
+        }
+    }
+    
+    private final class Worker implements Runnable {
+        private final int index;
+        private final LongHeap open = new LongHeap();
+        private final ConcurrentLinkedQueue<int[]> inbox = new ConcurrentLinkedQueue<>();
+        private final int[][] outbox = new int[threads][];
+        private final int[] outboxSize = new int[threads];
+        private int expansions;
+        private long nodesSent;
+        private int loops;
+        
+        Worker(int index) {
+            this.index = index;
+        }
+        
+        @Override
+        public void run() {
+            while (!done) {
+                if (index == 0 && (++loops & CHECKPOINT_MASK) == 0 && checkpoint()) return;
+                
+                drainInbox();
+                
+                // Everything left at or above the incumbent can never improve it
+                if (!open.isEmpty() && (int) (open.peek() >>> 32) >= incumbent.get()) {
+                    open.clear();
+                }
+                
+                if (open.isEmpty()) {
+                    if (!waitForWork()) return;
+                    continue;
+                }
+                
+                long entry = open.pop();
+                int f = (int) (entry >>> 32);
+                int cell = (int) entry;
+                int g = (int) ctx.getG(cell);
+                
+                // Stale entry: the cell was reached more cheaply after it was queued
+                if (f != g + heuristic(cell)) continue;
+                
+                if (cell == goalCell) {
+                    offerIncumbent(g);
+                    continue;
+                }
+                
+                ctx.set(cell, SearchContext.CLOSED);
+                if ((++expansions & CHECKPOINT_MASK) == 0) {
+                    progress.addAndGet(CHECKPOINT_MASK + 1);
+                }
+                
+                // Explore neighbors
+                int x = cell / gridSize;
+                int y = cell % gridSize;
+                for (int[] dir : DIRECTIONS) {
+                    int newX = x + dir[0];
+                    int newY = y + dir[1];
+                    
+                    if (newX < 0 || newX >= gridSize || newY < 0 || newY >= gridSize
+                        || !grid[newX][newY].isWalkable()) continue;
+                    
+                    int neighbor = newX * gridSize + newY;
+                    int tentativeG = g + 1;
+                    if (tentativeG + heuristic(neighbor) >= incumbent.get()) continue;
+                    
+                    int target = owner(neighbor);
+                    if (target == index) {
+                        relax(neighbor, tentativeG, cell);
+                    } else {
+                        send(target, neighbor, tentativeG, cell);
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Applies a (cell, g, parent) candidate to a cell this worker owns.
+         */
+        private void relax(int cell, int g, int parent) {
+            if (g < ctx.getG(cell)) {
+                ctx.update(cell, g, parent);
+                open.push(g + heuristic(cell), cell);
+            }
+        }
+        
+        private void send(int target, int cell, int g, int parent) {
+            int[] batch = outbox[target];
+            if (batch == null) {
+                batch = outbox[target] = new int[BATCH_SIZE * 3];
+            }
+            int size = outboxSize[target];
+            batch[size] = cell;
+            batch[size + 1] = g;
+            batch[size + 2] = parent;
+            outboxSize[target] = size + 3;
+            if (size + 3 == batch.length) {
+                flush(target);
+            }
+        }
+        
+        private void flush(int target) {
+            int size = outboxSize[target];
+            if (size == 0) return;
+            // Counted before it becomes visible, so termination cannot miss it
+            active.incrementAndGet();
+            workers[target].inbox.offer(Arrays.copyOf(outbox[target], size));
+            outboxSize[target] = 0;
+            nodesSent += size / 3;
+        }
+        
+        private void drainInbox() {
+            int[] batch;
+            while ((batch = inbox.poll()) != null) {
+                int bound = incumbent.get();
+                for (int i = 0; i < batch.length; i += 3) {
+                    if (batch[i + 1] + heuristic(batch[i]) < bound) {
+                        relax(batch[i], batch[i + 1], batch[i + 2]);
+                    }
+                }
+                active.decrementAndGet();
+            }
+        }
+        
+        /**
+         * Sends any pending batches, then idles until a batch arrives or the search ends.
+         * Returns false if the search is over.
+         */
+        private boolean waitForWork() {
+            for (int target = 0; target < threads; target++) {
+                flush(target);
+            }
+            if (!inbox.isEmpty()) return true;
+            
+            if (active.decrementAndGet() == 0) {
+                // Nobody busy and nothing in flight: the incumbent is optimal
+                done = true;
+                return false;
+            }
+            for (int spins = 0; !done; spins++) {
+                if (!inbox.isEmpty()) {
+                    active.incrementAndGet();
+                    return true;
+                }
+                if (index == 0 && checkpoint()) return false;
+                if (spins < IDLE_SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+            return false;
+        }
+        
+        /**
+         * Polls the token (worker 0 only, as SearchToken is single-threaded).
+         */
+        private boolean checkpoint() {
+            if (token.checkpoint(progress.get() + (expansions & CHECKPOINT_MASK))) {
+                cancelled = true;
+                done = true;
+                return true;
+            }
+            return false;
+        }
+    }
+    
+    /**
+     * Binary min-heap of (f << 32 | cell) entries. Decrease-key is replaced by pushing
+     * again; outdated entries are recognised and skipped when popped.
+     */
+    private static final class LongHeap {
+        private long[] heap = new long[256];
+        private int size;
+        
+        boolean isEmpty() {
+            return size == 0;
+        }
+        
+        void clear() {
+            size = 0;
+        }
+        
+        long peek() {
+            return heap[0];
+        }
+        
+        void push(int f, int cell) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            long entry = ((long) f << 32) | cell;
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= entry) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = entry;
+        }
+        
+        long pop() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+                if (heap[child] >= last) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 import javax.swing.*;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Implements multiple pathfinding algorithms with visualization:
@@ -7,154 +8,748 @@ import java.util.*;
  * - Dijkstra
  * - BFS (Breadth-First Search)
  * - Bellman-Ford
+ * - Fringe Search (A* without a priority queue)
+ * - HDA* (A* spread over several threads)
+ * - IDA* and SMA* (memory-bounded A* variants)
+ * - ARA* (anytime weighted A*)
+ * - Subgoal graph search (A* over precomputed corner cells)
+ * - Theta* (any-angle A*)
+ *
+ * Search state (g, parents, open/closed membership) lives in a pooled SearchContext
+ * indexed by cell (x * gridSize + y), not in the Nodes. The Nodes only provide walls
+ * and carry the visual state, so no per-run reset of the grid is needed. Walls may come
+ * from a different grid than the one being colored (an immutable GridSnapshot while the
+ * user keeps editing); the colors are always set on the Swing event thread.
+ *
+ * Without a panel the searches run headless: no repainting, no delays and no node
+ * state changes, so several instances can search the same grid concurrently.
+ *
+ * A*, Dijkstra and Theta* take their moves from a NeighborTable, 4- or 8-connected
+ * (see setConnectivity); the other searches always move in four directions.
  */
-public class PathfindingAlgorithm {
-    private final Node[][] grid;
+public class PathfindingAlgorithm implements AutoCloseable {
+    private final Node[][] grid;     // Walls searched
+    private final Node[][] display;  // Nodes colored by the visualization (usually the same grid)
     private final int gridSize;
     private final JPanel panel;
     private final int delay;
     
+    // Cells the running search has colored, so each one is animated (and delayed) once
+    private BitSet colored;
+    
+    // Scratch state borrowed from the pool on the first search, returned by close()
+    private SearchContext context;
+    
+    // Cancellation/deadline token polled by every search loop
+    private SearchToken token = new SearchToken();
+    private int checkpointCounter;
+    
+    // Flight recorder event of the search in progress (see SearchEvents)
+    private SearchEvents.Search searchEvent;
+    private String algorithmName;
+    
+    // Without visualization the token is polled every 256 loop iterations
+    private static final int CHECKPOINT_MASK = 0xFF;
+    
+    // Upper bound on nodes the memory-bounded searches may hold at once
+    private int memoryLimit = DEFAULT_MEMORY_LIMIT;
+    
+    public static final int DEFAULT_MEMORY_LIMIT = 100_000;
+    
+    // Agent footprint (k x k cells, anchored top-left) for A* and Dijkstra
+    private int agentSize = 1;
+    private ClearanceMap clearance;
+    
+    // Moves of A*, Dijkstra and Theta*, rebuilt when the connectivity or agent size changes
+    private Connectivity connectivity = Connectivity.FOUR;
+    private NeighborTable neighbors;
+    
+    // Dead-end regions skipped by A*, Dijkstra and BFS (see DeadEndMap)
+    private boolean deadEndPruning;
+    private DeadEndMap deadEnds;
+    
+    // Precomputed per-move goal boxes A* prunes with (see GoalBounds)
+    private GoalBounds goalBounds;
+    
+    // Corner cells and their connections for subgoalGraph(), built on first use if not set
+    private SubgoalGraph subgoals;
+    
+    // Per-cell counts of the searches (see setProfile); recording is the one in use
+    private SearchProfile profile;
+    private SearchProfile recording;
+    
+    // Worker threads used by HDA*, started on its first run and stopped by close()
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private ParallelAStar parallelSearch;
+    
+    // ARA* inflation schedule: first solution at 3x the heuristic, tightened to 1x
+    private static final double ARA_INITIAL_WEIGHT = 3.0;
+    private static final double ARA_WEIGHT_STEP = 0.5;
+    
     // Directions: up, right, down, left
     private static final int[][] DIRECTIONS = {{0, -1}, {1, 0}, {0, 1}, {-1, 0}};
     
+    private static final double SQRT2 = Math.sqrt(2);
+    
+    // Display states the animation may overwrite (never walls, start or end)
+    private static final Set<Node.State> UNEXPLORED = EnumSet.of(Node.State.EMPTY);
+    private static final Set<Node.State> EXPLORED = EnumSet.of(Node.State.EMPTY, Node.State.VISITED);
+    private static final Set<Node.State> ON_PATH = EnumSet.of(Node.State.PATH);
+    
     public PathfindingAlgorithm(Node[][] grid, int gridSize, JPanel panel, int delay) {
+        this(grid, grid, gridSize, panel, delay);
+    }
+    
+    /**
+     * Searches the walls of grid while animating on the Nodes of display, which may
+     * be edited concurrently (see GridSnapshot.newSearch).
+     */
+    public PathfindingAlgorithm(Node[][] grid, Node[][] display, int gridSize, JPanel panel, int delay) {
         this.grid = grid;
+        this.display = display;
         this.gridSize = gridSize;
         this.panel = panel;
         this.delay = delay;
     }
     
+    /**
+     * Creates a headless instance (no visualization).
+     */
+    public PathfindingAlgorithm(Node[][] grid, int gridSize) {
+        this(grid, gridSize, null, 0);
+    }
+    
+    /**
+     * Sets the memory cap used by IDA* (maximum path depth kept on the stack)
+     * and SMA* (maximum size of the open list).
+     */
+    public void setMemoryLimit(int memoryLimit) {
+        if (memoryLimit < 1) {
+            throw new IllegalArgumentException("Memory limit must be positive: " + memoryLimit);
+        }
+        this.memoryLimit = memoryLimit;
+    }
+    
+    public int getMemoryLimit() {
+        return memoryLimit;
+    }
+    
+    /**
+     * Sets the size k of the k x k agent A* and Dijkstra plan for; the path then
+     * lists the agent's top-left cell. The other searches always use 1.
+     */
+    public void setAgentSize(int agentSize) {
+        if (agentSize < 1) {
+            throw new IllegalArgumentException("Agent size must be positive: " + agentSize);
+        }
+        this.agentSize = agentSize;
+    }
+    
+    /**
+     * Sets the clearance map used for agents larger than one cell. Without one, a map
+     * is computed from the grid on the first search that needs it.
+     */
+    public void setClearanceMap(ClearanceMap clearance) {
+        this.clearance = clearance;
+        if (neighbors != null && neighbors.getAgentSize() > 1) {
+            neighbors = null;
+        }
+    }
+    
+    /**
+     * Sets the moves of A*, Dijkstra and Theta* (default: four directions). With
+     * diagonals A* estimates with the octile distance, and dead-end pruning stays on
+     * only if corners are not cut.
+     */
+    public void setConnectivity(Connectivity connectivity) {
+        this.connectivity = connectivity;
+    }
+    
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+    
+    /**
+     * Sets precomputed moves for the current walls. The table is used while its
+     * connectivity and agent size match the search's; otherwise a new one is built
+     * from the grid (or the clearance map) on the first search that needs it.
+     */
+    public void setNeighborTable(NeighborTable neighbors) {
+        if (neighbors != null && neighbors.getGridSize() != gridSize) {
+            throw new IllegalArgumentException("Neighbor table is for a " + neighbors.getGridSize()
+                + " grid, not " + gridSize);
+        }
+        this.neighbors = neighbors;
+    }
+    
+    /**
+     * Lets A*, Dijkstra and BFS skip dead-end regions that contain neither the start
+     * nor the end. Paths stay optimal; only expansions are saved.
+     */
+    public void setDeadEndPruning(boolean deadEndPruning) {
+        this.deadEndPruning = deadEndPruning;
+    }
+    
+    /**
+     * Sets the dead-end map used for pruning. It must match the current walls; without
+     * one, a map is computed from the grid on the first search that needs it.
+     */
+    public void setDeadEndMap(DeadEndMap deadEnds) {
+        this.deadEnds = deadEnds;
+    }
+    
+    /**
+     * Lets A* skip moves whose goal bounds exclude the end (null turns it off). The
+     * bounds must have been computed for the current walls; like the paths they
+     * promise, they only apply to 1x1 agents, so larger agents ignore them.
+     */
+    public void setGoalBounds(GoalBounds goalBounds) {
+        if (goalBounds != null && goalBounds.getGridSize() != gridSize) {
+            throw new IllegalArgumentException("Goal bounds are for a " + goalBounds.getGridSize()
+                + " grid, not " + gridSize);
+        }
+        this.goalBounds = goalBounds;
+    }
+    
+    /**
+     * Sets the subgoal graph used by subgoalGraph(). It must match the current walls;
+     * without one, a graph is computed from the grid on the first search that needs it.
+     */
+    public void setSubgoalGraph(SubgoalGraph subgoals) {
+        this.subgoals = subgoals;
+    }
+    
+    /**
+     * Records expansion order, expansion and relaxation counts and first-visit times
+     * of every following search into profile (null to stop). Meant for headless runs:
+     * with visualization the times include the animation delays. HDA* is not
+     * profiled, its workers expand cells outside this class.
+     */
+    public void setProfile(SearchProfile profile) {
+        if (profile != null && profile.getCellCount() != gridSize * gridSize) {
+            throw new IllegalArgumentException("Profile has " + profile.getCellCount()
+                + " cells, grid has " + gridSize * gridSize);
+        }
+        this.profile = profile;
+    }
+    
+    public SearchProfile getProfile() {
+        return profile;
+    }
+    
+    /**
+     * Sets the number of threads HDA* searches with (default: one per processor).
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        if (parallelSearch != null && parallelSearch.getThreads() != parallelism) {
+            parallelSearch.close();
+            parallelSearch = null;
+        }
+        this.parallelism = parallelism;
+    }
+    
+    /**
+     * Per-thread expansions and load imbalance of the last HDA* run ("" if none).
+     */
+    public String getParallelLoadReport() {
+        return parallelSearch == null ? "" : parallelSearch.describeLoad();
+    }
+    
+    /**
+     * Sets the token the searches poll for cancellation, deadlines and progress.
+     */
+    public void setSearchToken(SearchToken token) {
+        this.token = token;
+    }
+    
+    /**
+     * Returns the search context to the shared pool.
+     * The instance can still be used afterwards; it borrows a new context if needed.
+     */
+    @Override
+    public void close() {
+        if (parallelSearch != null) {
+            parallelSearch.close();
+            parallelSearch = null;
+        }
+        if (context != null) {
+            context.setProfile(null);
+            SearchContextPool.shared().release(context);
+            context = null;
+        }
+    }
+    
     /**
      * A* algorithm implementation with heuristic.
+     * Plans for the configured agent size (see setAgentSize) and connectivity, and
+     * prunes moves with the goal bounds, if set.
      */
     public PathfindingResult aStar(Node start, Node end) {
-        PriorityQueue<Node> openSet = new PriorityQueue<>();
-        Set<Node> closedSet = new HashSet<>();
+        SearchContext ctx = beginSearch(SearchAlgorithm.A_STAR);
+        int startCell = cellOf(start);
+        int endCell = cellOf(end);
+        NeighborTable moves = neighbors(agentSize);
+        if (!agentFits(startCell) || !agentFits(endCell)) {
+            return finish(new PathfindingResult(false, 0, 0));
+        }
         
         // Initialize start node
-        start.updateCosts(0, null);
-        start.calculateHeuristic(end);
-        openSet.add(start);
+        ctx.update(startCell, 0, SearchContext.NO_PARENT);
+        ctx.push(startCell, estimate(startCell, endCell));
         
         int nodesVisited = 0;
         
-        while (!openSet.isEmpty()) {
-            Node current = openSet.poll();
+        while (!ctx.isOpenEmpty()) {
+            if (shouldStop(nodesVisited, ctx.openSize())) return finish(PathfindingResult.cancelled(nodesVisited));
+            int current = ctx.pop();
             
             // Check if we reached the end
-            if (current == end) {
-                int pathLength = reconstructPath(end);
-                return new PathfindingResult(true, nodesVisited, pathLength);
+            if (current == endCell) {
+                int[] path = reconstructPath(ctx, startCell, endCell);
+                return finish(PathfindingResult.found(nodesVisited, path, gridSize));
             }
             
-            closedSet.add(current);
+            ctx.set(current, SearchContext.CLOSED);
             
             // Visualize visited node
-            if (current != start && current != end) {
-                current.setState(Node.State.VISITED);
-                visualize();
-            }
+            markVisited(current);
             nodesVisited++;
             
-            // Explore neighbors
-            for (int[] dir : DIRECTIONS) {
-                int newX = current.getX() + dir[0];
-                int newY = current.getY() + dir[1];
+            // Explore neighbors: one bit per allowed move, walls and grid edges already excluded
+            for (int mask = moves.moves(current); mask != 0; mask &= mask - 1) {
+                int d = Integer.numberOfTrailingZeros(mask);
+                if (boundsExclude(current, d, endCell)) continue;
+                int neighbor = current + moves.offset(d);
                 
-                if (!isValid(newX, newY)) continue;
+                if (ctx.has(neighbor, SearchContext.CLOSED)) continue;
+                if (skipsDeadEnd(neighbor, startCell, endCell)) continue;
                 
-                Node neighbor = grid[newX][newY];
+                double tentativeG = ctx.getG(current) + NeighborTable.cost(d);
                 
-                if (!neighbor.isWalkable() || closedSet.contains(neighbor)) continue;
+                if (tentativeG < ctx.getG(neighbor)) {
+                    ctx.update(neighbor, tentativeG, current);
+                    ctx.push(neighbor, tentativeG + estimate(neighbor, endCell));
+                }
+            }
+        }
+        
+        // No path found
+        return finish(new PathfindingResult(false, nodesVisited, 0));
+    }
+    
+    /**
+     * HDA* (Hash Distributed A*) implementation: A* on several threads.
+     * See ParallelAStar; g values and parents end up in this instance's search context,
+     * so the path is rebuilt exactly as for the single-threaded searches.
+     *
+     * The workers do not touch the panel. With visualization, the expanded nodes are
+     * shown at once when the search ends, then the path is drawn step by step.
+     */
+    public PathfindingResult hdaStar(Node start, Node end) {
+        SearchContext ctx = beginSearch(SearchAlgorithm.HDA_STAR);
+        int startCell = cellOf(start);
+        int endCell = cellOf(end);
+        
+        if (parallelSearch == null) {
+            parallelSearch = new ParallelAStar(grid, gridSize, parallelism);
+        }
+        boolean found = parallelSearch.search(ctx, startCell, endCell, token);
+        int nodesVisited = parallelSearch.getTotalExpansions();
+        
+        if (parallelSearch.wasCancelled()) return finish(PathfindingResult.cancelled(nodesVisited));
+        
+        if (panel != null) {
+            for (int cell = 0; cell < gridSize * gridSize; cell++) {
+                if (ctx.has(cell, SearchContext.CLOSED)) markVisited(cell);
+            }
+            visualize();
+        }
+        
+        if (!found) {
+            return finish(new PathfindingResult(false, nodesVisited, 0));
+        }
+        int[] path = reconstructPath(ctx, startCell, endCell);
+        return finish(PathfindingResult.found(nodesVisited, path, gridSize));
+    }
+    
+    /**
+     * Subgoal graph search: A* over the subgoals (convex wall corners) and the edges
+     * between directly h-reachable pairs (see SubgoalGraph). The start and the end are
+     * connected to the graph for this query only; the resulting chain of subgoals is
+     * refined into grid moves. Paths are as short as A*'s, nodes visited counts the
+     * expanded subgoals. Always plans for a 1x1 agent.
+     */
+    public PathfindingResult subgoalGraph(Node start, Node end) {
+        SearchContext ctx = beginSearch(SearchAlgorithm.SUBGOAL_GRAPH);
+        int startCell = cellOf(start);
+        int endCell = cellOf(end);
+        if (subgoals == null) {
+            subgoals = new SubgoalGraph(grid, gridSize);
+        }
+        
+        // Temporary edges: start to its direct subgoals (and the end, if that close),
+        // and from the end's direct subgoals to the end
+        int[] fromStart = subgoals.directSubgoals(startCell, endCell);
+        
+        // Within reach of a monotone path: that is a shortest path, no search needed
+        for (int cell : fromStart) {
+            if (cell == endCell) {
+                ctx.update(endCell, heuristic(startCell, endCell), startCell);
+                int[] path = refinePath(ctx, startCell, endCell);
+                return finish(PathfindingResult.found(0, path, gridSize));
+            }
+        }
+        for (int cell : subgoals.directSubgoals(endCell, SubgoalGraph.NONE)) {
+            ctx.set(cell, SearchContext.LINKED);
+        }
+        
+        ctx.update(startCell, 0, SearchContext.NO_PARENT);
+        ctx.push(startCell, heuristic(startCell, endCell));
+        int nodesVisited = 0;
+        
+        while (!ctx.isOpenEmpty()) {
+            if (shouldStop(nodesVisited, ctx.openSize())) return finish(PathfindingResult.cancelled(nodesVisited));
+            int current = ctx.pop();
+            
+            if (current == endCell) {
+                int[] path = refinePath(ctx, startCell, endCell);
+                return finish(PathfindingResult.found(nodesVisited, path, gridSize));
+            }
+            
+            ctx.set(current, SearchContext.CLOSED);
+            markVisited(current);
+            nodesVisited++;
+            
+            if (current == startCell) {
+                for (int neighbor : fromStart) {
+                    relaxSubgoalEdge(ctx, current, neighbor, endCell);
+                }
+            } else {
+                for (int edge = subgoals.edgeBegin(current); edge < subgoals.edgeEnd(current); edge++) {
+                    relaxSubgoalEdge(ctx, current, subgoals.edgeTarget(edge), endCell);
+                }
+            }
+            if (ctx.has(current, SearchContext.LINKED)) {
+                relaxSubgoalEdge(ctx, current, endCell, endCell);
+            }
+        }
+        
+        return finish(new PathfindingResult(false, nodesVisited, 0));
+    }
+    
+    /**
+     * Relaxes an edge between h-reachable cells, whose length is their Manhattan distance.
+     */
+    private void relaxSubgoalEdge(SearchContext ctx, int current, int neighbor, int endCell) {
+        if (ctx.has(neighbor, SearchContext.CLOSED)) return;
+        double tentativeG = ctx.getG(current) + heuristic(current, neighbor);
+        if (tentativeG < ctx.getG(neighbor)) {
+            ctx.update(neighbor, tentativeG, current);
+            ctx.push(neighbor, tentativeG + heuristic(neighbor, endCell));
+        }
+    }
+    
+    /**
+     * Expands the subgoal chain ending at endCell into grid cells (start and end
+     * included) and visualizes it like reconstructPath.
+     */
+    private int[] refinePath(SearchContext ctx, int startCell, int endCell) {
+        int subgoalCount = 1;
+        for (int cell = endCell; cell != startCell; cell = ctx.getParent(cell)) {
+            subgoalCount++;
+        }
+        int[] chain = new int[subgoalCount];
+        for (int i = subgoalCount - 1, cell = endCell; i >= 0; i--, cell = ctx.getParent(cell)) {
+            chain[i] = cell;
+        }
+        
+        int[] path = new int[(int) ctx.getG(endCell) + 1];
+        path[0] = startCell;
+        int length = 1;
+        for (int i = 1; i < chain.length; i++) {
+            length = subgoals.refine(chain[i - 1], chain[i], path, length);
+        }
+        
+        for (int i = 1; panel != null && i < path.length - 1; i++) {
+            recolor(nodeAt(path[i]), EXPLORED, Node.State.PATH);
+            visualize();
+        }
+        return path;
+    }
+    
+    /**
+     * Theta* any-angle search: A* over the configured moves, except that a neighbor the
+     * current cell's parent can see takes that parent as its own, so the path is a few
+     * straight segments at any angle instead of a staircase. The result lists every cell
+     * the segments pass through and its cost is their Euclidean length. Paths are close
+     * to the shortest any-angle path but not guaranteed to be it. Always plans for a
+     * 1x1 agent.
+     */
+    public PathfindingResult thetaStar(Node start, Node end) {
+        SearchContext ctx = beginSearch(SearchAlgorithm.THETA_STAR);
+        int startCell = cellOf(start);
+        int endCell = cellOf(end);
+        NeighborTable moves = neighbors(1);
+        
+        ctx.update(startCell, 0, SearchContext.NO_PARENT);
+        ctx.push(startCell, euclidean(startCell, endCell));
+        int nodesVisited = 0;
+        
+        while (!ctx.isOpenEmpty()) {
+            if (shouldStop(nodesVisited, ctx.openSize())) return finish(PathfindingResult.cancelled(nodesVisited));
+            int current = ctx.pop();
+            
+            if (current == endCell) {
+                int[] path = anyAnglePath(ctx, startCell, endCell);
+                return finish(PathfindingResult.found(nodesVisited, path, gridSize, 1.0, ctx.getG(endCell)));
+            }
+            
+            ctx.set(current, SearchContext.CLOSED);
+            markVisited(current);
+            nodesVisited++;
+            
+            int parent = ctx.getParent(current);
+            for (int mask = moves.moves(current); mask != 0; mask &= mask - 1) {
+                int d = Integer.numberOfTrailingZeros(mask);
+                int neighbor = current + moves.offset(d);
+                if (ctx.has(neighbor, SearchContext.CLOSED)) continue;
                 
-                double tentativeG = current.getG() + 1; // Cost is 1 for each step
+                // Straight from the parent if nothing is in the way, else through current
+                int via = current;
+                double tentativeG = ctx.getG(current) + NeighborTable.cost(d);
+                if (parent != SearchContext.NO_PARENT && traceLine(parent, neighbor, null, 0) >= 0) {
+                    via = parent;
+                    tentativeG = ctx.getG(parent) + euclidean(parent, neighbor);
+                }
                 
-                if (tentativeG < neighbor.getG()) {
-                    neighbor.calculateHeuristic(end);
-                    neighbor.updateCosts(tentativeG, current);
-                    
-                    if (!openSet.contains(neighbor)) {
-                        openSet.add(neighbor);
-                    }
+                if (tentativeG < ctx.getG(neighbor)) {
+                    ctx.update(neighbor, tentativeG, via);
+                    ctx.push(neighbor, tentativeG + euclidean(neighbor, endCell));
                 }
             }
         }
         
-        // No path found
-        return new PathfindingResult(false, nodesVisited, 0);
+        return finish(new PathfindingResult(false, nodesVisited, 0));
+    }
+    
+    /**
+     * Follows the line between the centers of two cells through every cell it crosses
+     * (a grid traversal with integer error terms). Each crossed cell after from, up to
+     * and including to, is written to path unless path is null.
+     *
+     * @return the position after the last cell, or -1 if a wall blocks the line. Passing
+     *         exactly through a corner counts as a diagonal move: the cells on both sides
+     *         must be open unless the connectivity cuts corners.
+     */
+    private int traceLine(int from, int to, int[] path, int position) {
+        int x = from / gridSize;
+        int y = from % gridSize;
+        int toX = to / gridSize;
+        int toY = to % gridSize;
+        int dx = Math.abs(toX - x);
+        int dy = Math.abs(toY - y);
+        int stepX = Integer.signum(toX - x);
+        int stepY = Integer.signum(toY - y);
+        Connectivity corners = connectivity == Connectivity.EIGHT_CUT_CORNERS
+            ? Connectivity.EIGHT_CUT_CORNERS : Connectivity.EIGHT;
+        
+        // Positive: the line leaves the current cell through an x side next
+        int error = dx - dy;
+        while (x != toX || y != toY) {
+            if (error > 0) {
+                x += stepX;
+                error -= 2 * dy;
+            } else if (error < 0) {
+                y += stepY;
+                error += 2 * dx;
+            } else {
+                if (!corners.allowsDiagonal(grid[x + stepX][y].isWalkable(), grid[x][y + stepY].isWalkable())) {
+                    return -1;
+                }
+                x += stepX;
+                y += stepY;
+                error += 2 * (dx - dy);
+            }
+            if (!grid[x][y].isWalkable()) return -1;
+            if (path != null) path[position] = x * gridSize + y;
+            position++;
+        }
+        return position;
+    }
+    
+    /**
+     * Expands the Theta* parent chain ending at endCell into the cells its segments
+     * cross (start and end included) and visualizes it like reconstructPath.
+     */
+    private int[] anyAnglePath(SearchContext ctx, int startCell, int endCell) {
+        int cells = 1;
+        for (int cell = endCell; cell != startCell; cell = ctx.getParent(cell)) {
+            cells += traceLine(ctx.getParent(cell), cell, null, 0);
+        }
+        
+        // Segments are traced forwards, so fill them in from the end backwards
+        int[] path = new int[cells];
+        path[0] = startCell;
+        int end = cells;
+        for (int cell = endCell; cell != startCell; cell = ctx.getParent(cell)) {
+            int parent = ctx.getParent(cell);
+            int length = traceLine(parent, cell, null, 0);
+            end -= length;
+            traceLine(parent, cell, path, end);
+        }
+        
+        for (int i = 1; panel != null && i < path.length - 1; i++) {
+            recolor(nodeAt(path[i]), EXPLORED, Node.State.PATH);
+            visualize();
+        }
+        return path;
     }
     
     /**
      * Dijkstra's algorithm implementation (A* without heuristic).
+     * Plans for the configured agent size (see setAgentSize) and connectivity.
      */
     public PathfindingResult dijkstra(Node start, Node end) {
-        PriorityQueue<Node> openSet = new PriorityQueue<>(Comparator.comparingDouble(Node::getG));
-        Set<Node> closedSet = new HashSet<>();
+        SearchContext ctx = beginSearch(SearchAlgorithm.DIJKSTRA);
+        int startCell = cellOf(start);
+        int endCell = cellOf(end);
+        NeighborTable moves = neighbors(agentSize);
+        if (!agentFits(startCell) || !agentFits(endCell)) {
+            return finish(new PathfindingResult(false, 0, 0));
+        }
         
         // Initialize start node
-        start.updateCosts(0, null);
-        openSet.add(start);
+        ctx.update(startCell, 0, SearchContext.NO_PARENT);
+        ctx.push(startCell, 0);
         
         int nodesVisited = 0;
         
-        while (!openSet.isEmpty()) {
-            Node current = openSet.poll();
+        while (!ctx.isOpenEmpty()) {
+            if (shouldStop(nodesVisited, ctx.openSize())) return finish(PathfindingResult.cancelled(nodesVisited));
+            int current = ctx.pop();
             
             // Check if we reached the end
-            if (current == end) {
-                int pathLength = reconstructPath(end);
-                return new PathfindingResult(true, nodesVisited, pathLength);
+            if (current == endCell) {
+                int[] path = reconstructPath(ctx, startCell, endCell);
+                return finish(PathfindingResult.found(nodesVisited, path, gridSize));
             }
             
-            if (closedSet.contains(current)) continue;
-            closedSet.add(current);
+            ctx.set(current, SearchContext.CLOSED);
             
             // Visualize visited node
-            if (current != start && current != end) {
-                current.setState(Node.State.VISITED);
-                visualize();
-            }
+            markVisited(current);
             nodesVisited++;
             
             // Explore neighbors
-            for (int[] dir : DIRECTIONS) {
-                int newX = current.getX() + dir[0];
-                int newY = current.getY() + dir[1];
-                
-                if (!isValid(newX, newY)) continue;
+            for (int mask = moves.moves(current); mask != 0; mask &= mask - 1) {
+                int d = Integer.numberOfTrailingZeros(mask);
+                int neighbor = current + moves.offset(d);
                 
-                Node neighbor = grid[newX][newY];
+                if (ctx.has(neighbor, SearchContext.CLOSED)) continue;
+                if (skipsDeadEnd(neighbor, startCell, endCell)) continue;
                 
-                if (!neighbor.isWalkable() || closedSet.contains(neighbor)) continue;
+                double tentativeG = ctx.getG(current) + NeighborTable.cost(d);
                 
-                double tentativeG = current.getG() + 1;
-                
-                if (tentativeG < neighbor.getG()) {
-                    neighbor.updateCosts(tentativeG, current);
-                    openSet.add(neighbor);
+                if (tentativeG < ctx.getG(neighbor)) {
+                    ctx.update(neighbor, tentativeG, current);
+                    ctx.push(neighbor, tentativeG);
                 }
             }
         }
         
         // No path found
-        return new PathfindingResult(false, nodesVisited, 0);
+        return finish(new PathfindingResult(false, nodesVisited, 0));
     }
     
     /**
-     * Reconstructs and visualizes the final path from start to end.
+     * Reconstructs and visualizes the final path from start to end, returning its
+     * cells (start and end included) in order.
      */
-    private int reconstructPath(Node end) {
-        int pathLength = 0;
-        Node current = end.getParent(); // Start from parent of end (don't color end)
+    private int[] reconstructPath(SearchContext ctx, int startCell, int endCell) {
+        SearchEvents.PathReconstruction event = new SearchEvents.PathReconstruction();
+        event.begin();
         
-        while (current != null && current.getState() != Node.State.START) {
-            current.setState(Node.State.PATH);
-            visualize();
-            current = current.getParent();
-            pathLength++;
+        // Count first, then fill the array back to front while walking the parents again
+        int cells = 1;
+        for (int cell = endCell; cell != startCell && ctx.getParent(cell) != SearchContext.NO_PARENT;
+                cell = ctx.getParent(cell)) {
+            cells++;
+        }
+        int[] path = new int[cells];
+        int current = endCell;
+        for (int i = cells - 1; i >= 0; i--) {
+            path[i] = current;
+            // Color the cells between start and end, starting next to the end
+            if (panel != null && current != startCell && current != endCell) {
+                recolor(nodeAt(current), EXPLORED, Node.State.PATH);
+                visualize();
+            }
+            current = ctx.getParent(current);
         }
         
-        return pathLength;
+        event.algorithm = algorithmName;
+        event.pathLength = Math.max(0, cells - 2);
+        event.commit();
+        return path;
+    }
+    
+    /**
+     * Moves for an agent of the given size under the current connectivity, built from
+     * the grid (or the clearance map) unless the table set or built last still fits.
+     */
+    private NeighborTable neighbors(int agent) {
+        NeighborTable table = neighbors;
+        if (table != null && table.getConnectivity() == connectivity && table.getAgentSize() == agent) {
+            return table;
+        }
+        if (agent == 1) {
+            table = new NeighborTable(grid, gridSize, connectivity);
+        } else {
+            if (clearance == null) {
+                clearance = new ClearanceMap(grid, gridSize);
+            }
+            table = new NeighborTable(clearance, agent, connectivity);
+        }
+        neighbors = table;
+        return table;
+    }
+    
+    /**
+     * Whether the configured agent fits with its top-left corner on cell. The moves keep
+     * it on such cells, so only the two ends of a search need checking.
+     */
+    private boolean agentFits(int cell) {
+        if (agentSize == 1) {
+            return true;
+        }
+        if (clearance == null) {
+            clearance = new ClearanceMap(grid, gridSize);
+        }
+        return clearance.fits(cell / gridSize, cell % gridSize, agentSize);
+    }
+    
+    /**
+     * Whether the goal bounds rule out leaving cell by the given move towards endCell.
+     * The bounds only know the four straight moves of a 1x1 agent.
+     */
+    private boolean boundsExclude(int cell, int direction, int endCell) {
+        return goalBounds != null && agentSize == 1 && connectivity == Connectivity.FOUR
+            && !goalBounds.allows(cell, direction, endCell);
+    }
+    
+    /**
+     * Whether dead-end pruning lets the search ignore a cell. A diagonal that cuts a
+     * corner can slip past the single entrance of a dead end, so that turns it off.
+     */
+    private boolean skipsDeadEnd(int cell, int startCell, int endCell) {
+        if (!deadEndPruning || connectivity == Connectivity.EIGHT_CUT_CORNERS) return false;
+        if (deadEnds == null) {
+            deadEnds = new DeadEndMap(grid, gridSize);
+        }
+        return deadEnds.canSkip(cell, startCell, endCell);
     }
     
     /**
@@ -169,138 +764,148 @@ public class PathfindingAlgorithm {
      * Explores all neighbors at current depth before moving to next depth.
      */
     public PathfindingResult bfs(Node start, Node end) {
-        Queue<Node> queue = new LinkedList<>();
-        Set<Node> visited = new HashSet<>();
+        SearchContext ctx = beginSearch(SearchAlgorithm.BFS);
+        int startCell = cellOf(start);
+        int endCell = cellOf(end);
+        
+        // Every cell is enqueued at most once, so a plain array serves as the queue
+        int[] queue = ctx.queue();
+        int head = 0;
+        int tail = 0;
         
         // Initialize start node
-        start.updateCosts(0, null);
-        queue.offer(start);
-        visited.add(start);
+        ctx.update(startCell, 0, SearchContext.NO_PARENT);
+        ctx.set(startCell, SearchContext.SEEN);
+        queue[tail++] = startCell;
         
         int nodesVisited = 0;
         
-        while (!queue.isEmpty()) {
-            Node current = queue.poll();
+        while (head < tail) {
+            if (shouldStop(nodesVisited, tail - head)) return finish(PathfindingResult.cancelled(nodesVisited));
+            int current = queue[head++];
             
             // Check if we reached the end
-            if (current == end) {
-                int pathLength = reconstructPath(end);
-                return new PathfindingResult(true, nodesVisited, pathLength);
+            if (current == endCell) {
+                int[] path = reconstructPath(ctx, startCell, endCell);
+                return finish(PathfindingResult.found(nodesVisited, path, gridSize));
             }
             
             // Visualize visited node
-            if (current != start && current != end) {
-                current.setState(Node.State.VISITED);
-                visualize();
-            }
+            markVisited(current);
             nodesVisited++;
             
             // Explore neighbors
+            int x = current / gridSize;
+            int y = current % gridSize;
             for (int[] dir : DIRECTIONS) {
-                int newX = current.getX() + dir[0];
-                int newY = current.getY() + dir[1];
+                int newX = x + dir[0];
+                int newY = y + dir[1];
                 
-                if (!isValid(newX, newY)) continue;
+                if (!isValid(newX, newY) || !grid[newX][newY].isWalkable()) continue;
                 
-                Node neighbor = grid[newX][newY];
+                int neighbor = newX * gridSize + newY;
                 
-                if (!neighbor.isWalkable() || visited.contains(neighbor)) continue;
+                if (ctx.has(neighbor, SearchContext.SEEN)) continue;
+                if (skipsDeadEnd(neighbor, startCell, endCell)) continue;
                 
-                neighbor.updateCosts(current.getG() + 1, current);
-                visited.add(neighbor);
-                queue.offer(neighbor);
+                ctx.update(neighbor, ctx.getG(current) + 1, current);
+                ctx.set(neighbor, SearchContext.SEEN);
+                queue[tail++] = neighbor;
             }
         }
         
         // No path found
-        return new PathfindingResult(false, nodesVisited, 0);
+        return finish(new PathfindingResult(false, nodesVisited, 0));
     }
     
     /**
      * Bellman-Ford Algorithm - SPFA (Shortest Path Faster Algorithm) Variant
-     * 
+     *
      * This is a queue-based optimization of Bellman-Ford that:
      * 1. Only processes nodes that were updated in the previous iteration
      * 2. Explores outward naturally from the start (like Dijkstra/BFS)
      * 3. Still maintains Bellman-Ford's ability to handle negative weights
-     * 
+     *
      * Time Complexity: O(V * E) worst case, but typically O(E) in practice
      * Space Complexity: O(V)
-     * 
+     *
      * This creates a more natural radial propagation pattern similar to Dijkstra,
      * while still using the edge relaxation approach of Bellman-Ford.
      */
     public PathfindingResult bellmanFord(Node start, Node end) {
-        // Step 1: Initialize distances to infinity
-        for (int x = 0; x < gridSize; x++) {
-            for (int y = 0; y < gridSize; y++) {
-                grid[x][y].updateCosts(Double.MAX_VALUE, null);
-            }
-        }
+        // Step 1: Every distance starts at infinity - a fresh context generation
+        // gives us that without touching the whole grid
+        SearchContext ctx = beginSearch(SearchAlgorithm.BELLMAN_FORD);
+        int startCell = cellOf(start);
+        int endCell = cellOf(end);
+        int cellCount = gridSize * gridSize;
         
         // Distance to start node is 0
-        start.updateCosts(0, null);
+        ctx.update(startCell, 0, SearchContext.NO_PARENT);
         
-        // Queue for nodes that need to be processed
-        Queue<Node> queue = new LinkedList<>();
-        Set<Node> inQueue = new HashSet<>();
-        Set<Node> visitedNodes = new HashSet<>();
+        // Circular queue for nodes that need to be processed; a node is in it at most once
+        int[] queue = ctx.queue();
+        int head = 0;
+        int size = 0;
+        int nodesVisited = 0;
         
         // Add start node to queue
-        queue.offer(start);
-        inQueue.add(start);
-        
-        // Track relaxation count to prevent infinite loops (negative cycle detection)
-        Map<Node, Integer> relaxationCount = new HashMap<>();
+        queue[0] = startCell;
+        size = 1;
+        ctx.set(startCell, SearchContext.IN_QUEUE);
         
         // Step 2: Process nodes using queue (SPFA approach)
-        while (!queue.isEmpty()) {
-            Node u = queue.poll();
-            inQueue.remove(u);
-            
-            // Visualize current node being processed
-            if (u != start && u != end && !visitedNodes.contains(u)) {
-                u.setState(Node.State.VISITED);
-                visitedNodes.add(u);
-                visualize();
+        while (size > 0) {
+            if (shouldStop(nodesVisited, size)) return finish(PathfindingResult.cancelled(nodesVisited));
+            int u = queue[head];
+            head = (head + 1) % cellCount;
+            size--;
+            ctx.clear(u, SearchContext.IN_QUEUE);
+            
+            // Visualize current node being processed (first time only)
+            if (!ctx.has(u, SearchContext.CLOSED)) {
+                ctx.set(u, SearchContext.CLOSED);
+                markVisited(u);
+                nodesVisited++;
             }
             
             // Skip if unreachable
-            if (u.getG() == Double.MAX_VALUE) {
+            if (ctx.getG(u) == Double.MAX_VALUE) {
                 continue;
             }
             
             // Relax all edges from this node
+            int ux = u / gridSize;
+            int uy = u % gridSize;
             for (int[] dir : DIRECTIONS) {
-                int nx = u.getX() + dir[0];
-                int ny = u.getY() + dir[1];
+                int nx = ux + dir[0];
+                int ny = uy + dir[1];
                 
-                if (!isValid(nx, ny)) continue;
+                if (!isValid(nx, ny) || !grid[nx][ny].isWalkable()) continue;
                 
-                Node v = grid[nx][ny];
-                
-                if (!v.isWalkable()) continue;
+                int v = nx * gridSize + ny;
                 
                 // Relaxation: if distance[u] + weight(u,v) < distance[v]
                 double weight = 1.0; // Edge weight in grid
-                double newDistance = u.getG() + weight;
+                double newDistance = ctx.getG(u) + weight;
                 
-                if (newDistance < v.getG()) {
+                if (newDistance < ctx.getG(v)) {
                     // Update distance and parent
-                    v.updateCosts(newDistance, u);
+                    ctx.update(v, newDistance, u);
                     
                     // Add to queue if not already in it
-                    if (!inQueue.contains(v)) {
-                        queue.offer(v);
-                        inQueue.add(v);
+                    if (!ctx.has(v, SearchContext.IN_QUEUE)) {
+                        queue[(head + size) % cellCount] = v;
+                        size++;
+                        ctx.set(v, SearchContext.IN_QUEUE);
                         
                         // Track relaxation count (for negative cycle detection in general graphs)
-                        int count = relaxationCount.getOrDefault(v, 0) + 1;
-                        relaxationCount.put(v, count);
+                        int count = ctx.getCounter(v) + 1;
+                        ctx.setCounter(v, count);
                         
                         // Safety check: if a node is relaxed too many times, break
                         // (In our grid with positive weights, this shouldn't happen)
-                        if (count > gridSize * gridSize) {
+                        if (count > cellCount) {
                             break;
                         }
                     }
@@ -309,156 +914,758 @@ public class PathfindingAlgorithm {
         }
         
         // Step 3: Check if destination is reachable
-        if (end.getG() == Double.MAX_VALUE) {
-            return new PathfindingResult(false, visitedNodes.size(), 0);
+        if (ctx.getG(endCell) == Double.MAX_VALUE) {
+            return finish(new PathfindingResult(false, nodesVisited, 0));
         }
         
         // Reconstruct and return the shortest path
-        int pathLength = reconstructPath(end);
-        return new PathfindingResult(true, visitedNodes.size(), pathLength);
+        int[] path = reconstructPath(ctx, startCell, endCell);
+        return finish(PathfindingResult.found(nodesVisited, path, gridSize));
     }
     
     /**
      * Greedy Best-First Search Algorithm
-     * 
+     *
      * Similar to A* but ONLY uses heuristic (h) to guide search, ignoring actual cost (g).
      * This makes it very fast but NOT guaranteed to find the optimal path.
-     * 
+     *
      * Formula: f(n) = h(n) only
-     * 
+     *
      * Time Complexity: O((V + E) log V) - same as A* but often faster in practice
      * Space Complexity: O(V)
-     * 
+     *
      * Pros: Very fast, good for when speed matters more than optimality
      * Cons: Path may not be optimal, can get stuck going wrong direction
      */
     public PathfindingResult greedyBestFirst(Node start, Node end) {
-        // Priority queue based on heuristic only
-        PriorityQueue<Node> openSet = new PriorityQueue<>(Comparator.comparingDouble(Node::getH));
-        Set<Node> closedSet = new HashSet<>();
+        SearchContext ctx = beginSearch(SearchAlgorithm.GREEDY_BEST_FIRST);
+        int startCell = cellOf(start);
+        int endCell = cellOf(end);
         
-        // Initialize start node
-        start.updateCosts(0, null);
-        start.calculateHeuristic(end);
-        openSet.add(start);
+        // Initialize start node; the open list is keyed by heuristic only
+        ctx.update(startCell, 0, SearchContext.NO_PARENT);
+        ctx.push(startCell, heuristic(startCell, endCell));
         
         int nodesVisited = 0;
         
-        while (!openSet.isEmpty()) {
-            Node current = openSet.poll();
+        while (!ctx.isOpenEmpty()) {
+            if (shouldStop(nodesVisited, ctx.openSize())) return finish(PathfindingResult.cancelled(nodesVisited));
+            int current = ctx.pop();
             
             // Check if we reached the end
-            if (current == end) {
-                int pathLength = reconstructPath(end);
-                return new PathfindingResult(true, nodesVisited, pathLength);
+            if (current == endCell) {
+                int[] path = reconstructPath(ctx, startCell, endCell);
+                return finish(PathfindingResult.found(nodesVisited, path, gridSize));
             }
             
-            closedSet.add(current);
+            ctx.set(current, SearchContext.CLOSED);
             
             // Visualize visited node
-            if (current != start && current != end) {
-                current.setState(Node.State.VISITED);
-                visualize();
-            }
+            markVisited(current);
             nodesVisited++;
             
             // Explore neighbors
+            int x = current / gridSize;
+            int y = current % gridSize;
             for (int[] dir : DIRECTIONS) {
-                int newX = current.getX() + dir[0];
-                int newY = current.getY() + dir[1];
+                int newX = x + dir[0];
+                int newY = y + dir[1];
                 
-                if (!isValid(newX, newY)) continue;
+                if (!isValid(newX, newY) || !grid[newX][newY].isWalkable()) continue;
                 
-                Node neighbor = grid[newX][newY];
+                int neighbor = newX * gridSize + newY;
                 
-                if (!neighbor.isWalkable() || closedSet.contains(neighbor)) continue;
+                if (ctx.has(neighbor, SearchContext.CLOSED)) continue;
                 
                 // Only calculate heuristic, ignore actual cost
-                if (!openSet.contains(neighbor)) {
-                    neighbor.calculateHeuristic(end);
-                    neighbor.updateCosts(current.getG() + 1, current); // Track cost for path reconstruction
-                    openSet.add(neighbor);
+                if (!ctx.inOpen(neighbor)) {
+                    ctx.update(neighbor, ctx.getG(current) + 1, current); // Track cost for path reconstruction
+                    ctx.push(neighbor, heuristic(neighbor, endCell));
                 }
             }
         }
         
         // No path found
-        return new PathfindingResult(false, nodesVisited, 0);
+        return finish(new PathfindingResult(false, nodesVisited, 0));
     }
     
     /**
      * Depth-First Search (DFS) Algorithm
-     * 
+     *
      * Explores as far as possible along each branch before backtracking.
      * Uses a stack (LIFO) instead of a queue (FIFO like BFS).
-     * 
+     *
      * NOT guaranteed to find the shortest path!
      * Will find A path if one exists, but it may be very long and winding.
-     * 
+     *
      * Time Complexity: O(V + E) - can visit all nodes
      * Space Complexity: O(V) - for the stack
-     * 
+     *
      * Pros: Memory efficient, finds a path quickly (any path)
      * Cons: Path is usually NOT optimal, can be very long
      */
     public PathfindingResult dfs(Node start, Node end) {
-        Stack<Node> stack = new Stack<>();
-        Set<Node> visited = new HashSet<>();
+        SearchContext ctx = beginSearch(SearchAlgorithm.DFS);
+        int startCell = cellOf(start);
+        int endCell = cellOf(end);
+        
+        // Every cell is pushed at most once, so the stack fits in one array
+        int[] stack = ctx.queue();
+        int top = 0;
         
         // Initialize start node
-        start.updateCosts(0, null);
-        stack.push(start);
-        visited.add(start);
+        ctx.update(startCell, 0, SearchContext.NO_PARENT);
+        ctx.set(startCell, SearchContext.SEEN);
+        stack[top++] = startCell;
         
         int nodesVisited = 0;
         
-        while (!stack.isEmpty()) {
-            Node current = stack.pop();
+        while (top > 0) {
+            if (shouldStop(nodesVisited, top)) return finish(PathfindingResult.cancelled(nodesVisited));
+            int current = stack[--top];
             
             // Check if we reached the end
-            if (current == end) {
-                int pathLength = reconstructPath(end);
-                return new PathfindingResult(true, nodesVisited, pathLength);
+            if (current == endCell) {
+                int[] path = reconstructPath(ctx, startCell, endCell);
+                return finish(PathfindingResult.found(nodesVisited, path, gridSize));
             }
             
             // Visualize visited node
-            if (current != start && current != end) {
-                current.setState(Node.State.VISITED);
-                visualize();
-            }
+            markVisited(current);
             nodesVisited++;
             
             // Explore neighbors (in reverse order for consistent behavior)
+            int x = current / gridSize;
+            int y = current % gridSize;
             for (int i = DIRECTIONS.length - 1; i >= 0; i--) {
                 int[] dir = DIRECTIONS[i];
-                int newX = current.getX() + dir[0];
-                int newY = current.getY() + dir[1];
+                int newX = x + dir[0];
+                int newY = y + dir[1];
                 
-                if (!isValid(newX, newY)) continue;
+                if (!isValid(newX, newY) || !grid[newX][newY].isWalkable()) continue;
                 
-                Node neighbor = grid[newX][newY];
+                int neighbor = newX * gridSize + newY;
                 
-                if (!neighbor.isWalkable() || visited.contains(neighbor)) continue;
+                if (ctx.has(neighbor, SearchContext.SEEN)) continue;
                 
-                neighbor.updateCosts(current.getG() + 1, current);
-                visited.add(neighbor);
-                stack.push(neighbor);
+                ctx.update(neighbor, ctx.getG(current) + 1, current);
+                ctx.set(neighbor, SearchContext.SEEN);
+                stack[top++] = neighbor;
             }
         }
         
         // No path found
-        return new PathfindingResult(false, nodesVisited, 0);
+        return finish(new PathfindingResult(false, nodesVisited, 0));
+    }
+    
+    /**
+     * IDA* (Iterative Deepening A*) Algorithm
+     *
+     * Runs a series of depth-first searches, each bounded by an f = g + h threshold.
+     * The threshold of the next iteration is the smallest f that exceeded the current one.
+     *
+     * Only the current path is kept on an explicit stack, so memory is O(depth) instead
+     * of the open/closed sets A* needs. A transposition cutoff (the best g seen per cell)
+     * prunes the duplicate routes a grid would otherwise explore exponentially often.
+     *
+     * The stack depth is capped by the memory limit; if the shortest path is longer
+     * than that, the search gives up instead of running out of memory.
+     *
+     * Time Complexity: O(b^d) worst case, close to A* on grids thanks to the cutoff
+     * Space Complexity: O(d) for the search stack
+     */
+    public PathfindingResult idaStar(Node start, Node end) {
+        SearchContext ctx = beginSearch(SearchAlgorithm.IDA_STAR);
+        int startCell = cellOf(start);
+        int endCell = cellOf(end);
+        
+        int stackCapacity = Math.min(memoryLimit, gridSize * gridSize);
+        int[] pathStack = ctx.queue();
+        int[] nextDirection = ctx.aux();
+        
+        // The per-cell counter holds the iteration in which g was last written (0 = never)
+        double threshold = heuristic(startCell, endCell);
+        int iteration = 0;
+        int nodesVisited = 0;
+        
+        while (true) {
+            iteration++;
+            double nextThreshold = Double.MAX_VALUE;
+            
+            ctx.update(startCell, 0, SearchContext.NO_PARENT);
+            ctx.setCounter(startCell, iteration);
+            pathStack[0] = startCell;
+            nextDirection[0] = 0;
+            int depth = 0;
+            
+            while (depth >= 0) {
+                if (shouldStop(nodesVisited, depth + 1)) return finish(PathfindingResult.cancelled(nodesVisited));
+                int current = pathStack[depth];
+                
+                // First time this frame is on top: goal test and expansion bookkeeping
+                if (nextDirection[depth] == 0) {
+                    if (current == endCell) {
+                        int[] path = reconstructPath(ctx, startCell, endCell);
+                        return finish(PathfindingResult.found(nodesVisited, path, gridSize));
+                    }
+                    
+                    markVisited(current);
+                    nodesVisited++;
+                }
+                
+                // All neighbors tried: backtrack
+                if (nextDirection[depth] == DIRECTIONS.length) {
+                    depth--;
+                    continue;
+                }
+                
+                int[] dir = DIRECTIONS[nextDirection[depth]++];
+                int newX = current / gridSize + dir[0];
+                int newY = current % gridSize + dir[1];
+                
+                if (!isValid(newX, newY) || !grid[newX][newY].isWalkable()) continue;
+                
+                int neighbor = newX * gridSize + newY;
+                double tentativeG = ctx.getG(current) + 1;
+                
+                // Transposition cutoff: within an iteration only strictly better routes
+                // are worth following; across iterations an equal g is allowed again
+                boolean seenThisIteration = ctx.getCounter(neighbor) == iteration;
+                if (seenThisIteration ? tentativeG >= ctx.getG(neighbor) : tentativeG > ctx.getG(neighbor)) {
+                    continue;
+                }
+                
+                double f = tentativeG + heuristic(neighbor, endCell);
+                
+                if (f > threshold) {
+                    nextThreshold = Math.min(nextThreshold, f);
+                    continue;
+                }
+                
+                // Memory cap reached: treat as a dead end rather than growing the stack
+                if (depth + 1 >= stackCapacity) continue;
+                
+                ctx.update(neighbor, tentativeG, current);
+                ctx.setCounter(neighbor, iteration);
+                
+                depth++;
+                pathStack[depth] = neighbor;
+                nextDirection[depth] = 0;
+            }
+            
+            // Nothing exceeded the threshold: the reachable space is exhausted
+            if (nextThreshold == Double.MAX_VALUE) {
+                return finish(new PathfindingResult(false, nodesVisited, 0));
+            }
+            threshold = nextThreshold;
+        }
+    }
+    
+    /**
+     * Fringe Search Algorithm
+     *
+     * Finds the same shortest paths as A*, but without a priority queue. The frontier
+     * is a single linked list walked front to back once per f-threshold: nodes with
+     * f above the threshold are left in place for the next pass ("later"), the others
+     * are expanded and their children inserted right behind them, so they are visited
+     * in the same pass ("now"). Like IDA* the threshold grows to the smallest f that
+     * exceeded it, but g values are cached so no node is expanded twice per pass.
+     *
+     * The list lives in two int arrays indexed by cell, so every operation is O(1)
+     * and there is no heap to sift.
+     *
+     * Time Complexity: O(V + E) per pass, few passes on grids with unit costs
+     * Space Complexity: O(V)
+     */
+    public PathfindingResult fringeSearch(Node start, Node end) {
+        SearchContext ctx = beginSearch(SearchAlgorithm.FRINGE);
+        int startCell = cellOf(start);
+        int endCell = cellOf(end);
+        
+        // Doubly linked fringe; IN_QUEUE marks membership
+        int[] next = ctx.queue();
+        int[] prev = ctx.aux();
+        int head = startCell;
+        int fringeSize = 1;
+        next[startCell] = SearchContext.NO_PARENT;
+        prev[startCell] = SearchContext.NO_PARENT;
+        ctx.update(startCell, 0, SearchContext.NO_PARENT);
+        ctx.set(startCell, SearchContext.IN_QUEUE);
+        
+        double threshold = heuristic(startCell, endCell);
+        int nodesVisited = 0;
+        
+        while (head != SearchContext.NO_PARENT) {
+            double nextThreshold = Double.MAX_VALUE;
+            int current = head;
+            
+            while (current != SearchContext.NO_PARENT) {
+                if (shouldStop(nodesVisited, fringeSize)) return finish(PathfindingResult.cancelled(nodesVisited));
+                
+                double g = ctx.getG(current);
+                double f = g + heuristic(current, endCell);
+                
+                // Not this pass: leave it in the fringe for a later one
+                if (f > threshold) {
+                    nextThreshold = Math.min(nextThreshold, f);
+                    current = next[current];
+                    continue;
+                }
+                
+                if (current == endCell) {
+                    int[] path = reconstructPath(ctx, startCell, endCell);
+                    return finish(PathfindingResult.found(nodesVisited, path, gridSize));
+                }
+                
+                markVisited(current);
+                nodesVisited++;
+                
+                // Explore neighbors; children go right after the current node
+                int x = current / gridSize;
+                int y = current % gridSize;
+                for (int[] dir : DIRECTIONS) {
+                    int newX = x + dir[0];
+                    int newY = y + dir[1];
+                    
+                    if (!isValid(newX, newY) || !grid[newX][newY].isWalkable()) continue;
+                    
+                    int neighbor = newX * gridSize + newY;
+                    double tentativeG = g + 1;
+                    
+                    if (tentativeG >= ctx.getG(neighbor)) continue;
+                    
+                    // Already in the fringe: unlink it so it moves behind the current node
+                    if (ctx.has(neighbor, SearchContext.IN_QUEUE)) {
+                        if (prev[neighbor] != SearchContext.NO_PARENT) next[prev[neighbor]] = next[neighbor];
+                        else head = next[neighbor];
+                        if (next[neighbor] != SearchContext.NO_PARENT) prev[next[neighbor]] = prev[neighbor];
+                        fringeSize--;
+                    }
+                    
+                    ctx.update(neighbor, tentativeG, current);
+                    ctx.set(neighbor, SearchContext.IN_QUEUE);
+                    next[neighbor] = next[current];
+                    prev[neighbor] = current;
+                    if (next[current] != SearchContext.NO_PARENT) prev[next[current]] = neighbor;
+                    next[current] = neighbor;
+                    fringeSize++;
+                }
+                
+                // Expanded: remove it from the fringe and continue with its successor
+                int successor = next[current];
+                if (prev[current] != SearchContext.NO_PARENT) next[prev[current]] = successor;
+                else head = successor;
+                if (successor != SearchContext.NO_PARENT) prev[successor] = prev[current];
+                ctx.clear(current, SearchContext.IN_QUEUE);
+                fringeSize--;
+                current = successor;
+            }
+            
+            threshold = nextThreshold;
+        }
+        
+        // Fringe exhausted: no path
+        return finish(new PathfindingResult(false, nodesVisited, 0));
+    }
+    
+    /**
+     * SMA* (Simplified Memory-Bounded A*) Algorithm
+     *
+     * Behaves like A* until the open list reaches the memory limit. From then on the
+     * worst leaf (highest f) is forgotten to make room, and its f is backed up into its
+     * parent, which is queued again so the forgotten branch can be regenerated later
+     * if it turns out to be the most promising one.
+     *
+     * Closed-node bookkeeping lives in the search context's g/parent arrays instead of
+     * a closed set, so the frontier is the only part of the search that is bounded.
+     *
+     * Time Complexity: O((V + E) log V) with enough memory, more as branches are regenerated
+     * Space Complexity: O(memory limit) for the open list
+     */
+    public PathfindingResult smaStar(Node start, Node end) {
+        SearchContext ctx = beginSearch(SearchAlgorithm.SMA_STAR);
+        int startCell = cellOf(start);
+        int endCell = cellOf(end);
+        
+        // Ordered by f, deeper nodes (lower h) first; the cell index keeps the order total
+        TreeSet<Integer> openSet = new TreeSet<>(Comparator.<Integer>comparingDouble(ctx::getF)
+            .thenComparingInt(cell -> heuristic(cell, endCell))
+            .thenComparingInt(cell -> cell));
+        int requeuedCount = 0;
+        
+        // Initialize start node
+        ctx.update(startCell, 0, SearchContext.NO_PARENT);
+        ctx.setF(startCell, heuristic(startCell, endCell));
+        openSet.add(startCell);
+        
+        // Guards against endless regeneration when the limit is too small for the map
+        long maxExpansions = (long) gridSize * gridSize * DIRECTIONS.length;
+        int nodesVisited = 0;
+        
+        while (!openSet.isEmpty() && nodesVisited < maxExpansions) {
+            if (shouldStop(nodesVisited, openSet.size())) return finish(PathfindingResult.cancelled(nodesVisited));
+            int current = openSet.pollFirst();
+            if (ctx.has(current, SearchContext.REQUEUED)) {
+                ctx.clear(current, SearchContext.REQUEUED);
+                requeuedCount--;
+            }
+            
+            // Check if we reached the end
+            if (current == endCell) {
+                int[] path = reconstructPath(ctx, startCell, endCell);
+                return finish(PathfindingResult.found(nodesVisited, path, gridSize));
+            }
+            
+            // Visualize visited node
+            markVisited(current);
+            nodesVisited++;
+            
+            // Explore neighbors
+            int x = current / gridSize;
+            int y = current % gridSize;
+            for (int[] dir : DIRECTIONS) {
+                int newX = x + dir[0];
+                int newY = y + dir[1];
+                
+                if (!isValid(newX, newY) || !grid[newX][newY].isWalkable()) continue;
+                
+                int neighbor = newX * gridSize + newY;
+                double tentativeG = ctx.getG(current) + 1;
+                
+                // A forgotten child is regenerated at its old cost; otherwise only improve
+                boolean regenerate = ctx.has(neighbor, SearchContext.FORGOTTEN)
+                    && tentativeG <= ctx.getG(neighbor);
+                
+                if (regenerate || tentativeG < ctx.getG(neighbor)) {
+                    // Remove before changing f so the set order stays valid
+                    if (ctx.isTouched(neighbor) && openSet.remove(neighbor)
+                            && ctx.has(neighbor, SearchContext.REQUEUED)) {
+                        requeuedCount--;
+                    }
+                    ctx.clear(neighbor, SearchContext.REQUEUED | SearchContext.FORGOTTEN);
+                    ctx.update(neighbor, tentativeG, current);
+                    ctx.setF(neighbor, tentativeG + heuristic(neighbor, endCell));
+                    openSet.add(neighbor);
+                }
+            }
+            
+            // Over budget: forget the worst leaves and back their cost up to the parent.
+            // Re-queued parents are already-expanded nodes, so they don't count as leaves.
+            while (openSet.size() - requeuedCount > memoryLimit) {
+                int worst = -1;
+                for (int candidate : openSet.descendingSet()) {
+                    if (!ctx.has(candidate, SearchContext.REQUEUED)
+                            && ctx.getParent(candidate) != SearchContext.NO_PARENT) {
+                        worst = candidate;
+                        break;
+                    }
+                }
+                if (worst == -1) break;
+                
+                openSet.remove(worst);
+                ctx.set(worst, SearchContext.FORGOTTEN);
+                
+                int parent = ctx.getParent(worst);
+                if (!openSet.contains(parent)) {
+                    double ownF = ctx.getG(parent) + heuristic(parent, endCell);
+                    ctx.setF(parent, Math.max(ownF, ctx.getF(worst)));
+                    openSet.add(parent);
+                    ctx.set(parent, SearchContext.REQUEUED);
+                    requeuedCount++;
+                }
+            }
+        }
+        
+        // No path found (or memory limit too small to reach the goal)
+        return finish(new PathfindingResult(false, nodesVisited, 0));
+    }
+    
+    /**
+     * ARA* (Anytime Repairing A*) Algorithm
+     *
+     * Starts with a weighted A* (f = g + w * h, w > 1), which finds a first path quickly
+     * whose cost is at most w times the optimum. While time remains, w is lowered step by
+     * step and the search is repaired rather than restarted: g values and parents are
+     * kept, and nodes improved after being closed are carried over in an INCONS list.
+     *
+     * Each improved path is handed to onImprovement as soon as it is found. The search
+     * stops when w reaches 1 (the path is optimal) or the time budget runs out, and
+     * returns the best path found so far. The budget only applies once there is a path:
+     * the first, weighted iteration always runs to the end, so a pause early in the
+     * search cannot turn a reachable goal into a failure.
+     *
+     * Time Complexity: O((V + E) log V) per iteration, typically far less after the first
+     * Space Complexity: O(V)
+     */
+    public PathfindingResult anytimeAStar(Node start, Node end, long timeBudgetMillis,
+                                          Consumer<PathfindingResult> onImprovement) {
+        long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+        double weight = ARA_INITIAL_WEIGHT;
+        
+        SearchContext ctx = beginSearch(SearchAlgorithm.ARA_STAR);
+        int startCell = cellOf(start);
+        int endCell = cellOf(end);
+        
+        // Closed membership is per iteration: a cell is closed if its counter equals it.
+        // Inconsistent cells are listed in aux so they can be reopened in bulk.
+        int[] inconsistent = ctx.aux();
+        int inconsistentCount = 0;
+        int iteration = 1;
+        List<Node> publishedPath = new ArrayList<>();
+        
+        // Initialize start node
+        ctx.update(startCell, 0, SearchContext.NO_PARENT);
+        ctx.push(startCell, weight * heuristic(startCell, endCell));
+        
+        int nodesVisited = 0;
+        double bestCost = Double.MAX_VALUE;
+        PathfindingResult best = null;
+        
+        while (true) {
+            // ImprovePath: expand until no open node can beat the current goal cost
+            boolean outOfTime = false;
+            while (!ctx.isOpenEmpty() && ctx.getG(endCell) > ctx.peekKey()) {
+                if (shouldStop(nodesVisited, ctx.openSize()) || (best != null && System.nanoTime() > deadline)) {
+                    outOfTime = true;
+                    break;
+                }
+                
+                int current = ctx.pop();
+                ctx.setCounter(current, iteration);
+                
+                // Visualize visited node
+                markVisited(current);
+                nodesVisited++;
+                
+                // Explore neighbors
+                int x = current / gridSize;
+                int y = current % gridSize;
+                for (int[] dir : DIRECTIONS) {
+                    int newX = x + dir[0];
+                    int newY = y + dir[1];
+                    
+                    if (!isValid(newX, newY) || !grid[newX][newY].isWalkable()) continue;
+                    
+                    int neighbor = newX * gridSize + newY;
+                    double tentativeG = ctx.getG(current) + 1;
+                    
+                    if (tentativeG < ctx.getG(neighbor)) {
+                        ctx.update(neighbor, tentativeG, current);
+                        
+                        if (ctx.getCounter(neighbor) != iteration) {
+                            ctx.push(neighbor, tentativeG + weight * heuristic(neighbor, endCell));
+                        } else if (!ctx.has(neighbor, SearchContext.INCONSISTENT)) {
+                            ctx.set(neighbor, SearchContext.INCONSISTENT);
+                            inconsistent[inconsistentCount++] = neighbor;
+                        }
+                    }
+                }
+            }
+            
+            // Publish the new path if this iteration improved on the last one
+            if (ctx.getG(endCell) < bestCost) {
+                // Recolor the previous path (only matters when animating)
+                for (Node node : publishedPath) {
+                    recolor(node, ON_PATH, Node.State.VISITED);
+                }
+                publishedPath.clear();
+                for (int cell = ctx.getParent(endCell); panel != null && cell != SearchContext.NO_PARENT
+                        && cell != startCell; cell = ctx.getParent(cell)) {
+                    publishedPath.add(nodeAt(cell));
+                }
+                
+                // An interrupted iteration only guarantees the previous iteration's bound
+                double bound = outOfTime && best != null ? best.getSuboptimalityBound() : weight;
+                bestCost = ctx.getG(endCell);
+                int[] path = reconstructPath(ctx, startCell, endCell);
+                best = PathfindingResult.found(nodesVisited, path, gridSize, bound);
+                if (onImprovement != null) {
+                    onImprovement.accept(best);
+                }
+            }
+            
+            if (outOfTime || weight <= 1.0 || System.nanoTime() > deadline) {
+                break;
+            }
+            
+            // Tighten the bound and repair: reopen inconsistent nodes, re-key the open list
+            weight = Math.max(1.0, weight - ARA_WEIGHT_STEP);
+            iteration++;
+            
+            int[] reopened = ctx.queue();
+            int reopenedCount = 0;
+            while (!ctx.isOpenEmpty()) {
+                reopened[reopenedCount++] = ctx.pop();
+            }
+            for (int i = 0; i < inconsistentCount; i++) {
+                ctx.clear(inconsistent[i], SearchContext.INCONSISTENT);
+                reopened[reopenedCount++] = inconsistent[i];
+            }
+            inconsistentCount = 0;
+            for (int i = 0; i < reopenedCount; i++) {
+                int cell = reopened[i];
+                ctx.push(cell, ctx.getG(cell) + weight * heuristic(cell, endCell));
+            }
+        }
+        
+        // Cancelled by the caller (as opposed to running out of time)
+        if (token.isCancelled() && !token.isTimedOut()) {
+            return finish(PathfindingResult.cancelled(nodesVisited));
+        }
+        
+        if (best == null) {
+            // No path exists, or the caller's token stopped the first iteration
+            return finish(new PathfindingResult(false, nodesVisited, 0));
+        }
+        return finish(best.withNodesVisited(nodesVisited));
+    }
+    
+    /**
+     * Borrows the search context on first use, starts a fresh generation and opens
+     * the flight recorder event for the search.
+     */
+    private SearchContext beginSearch(SearchAlgorithm algorithm) {
+        if (context == null) {
+            context = SearchContextPool.shared().acquire(gridSize * gridSize);
+        }
+        context.begin();
+        if (panel != null) {
+            colored = new BitSet(gridSize * gridSize);
+        }
+        
+        algorithmName = algorithm.getDisplayName();
+        recording = algorithm == SearchAlgorithm.HDA_STAR ? null : profile;
+        if (recording != null) {
+            recording.begin(algorithmName);
+        }
+        context.setProfile(recording);
+        searchEvent = new SearchEvents.Search();
+        searchEvent.begin();
+        return context;
+    }
+    
+    /**
+     * Closes the flight recorder event of the current search; returns the result unchanged.
+     */
+    private PathfindingResult finish(PathfindingResult result) {
+        if (context != null) context.setProfile(null);
+        recording = null;
+        SearchEvents.Search event = searchEvent;
+        searchEvent = null;
+        if (event != null && event.shouldCommit()) {
+            event.algorithm = algorithmName;
+            event.gridSize = gridSize;
+            event.success = result.isSuccess();
+            event.cancelled = result.isCancelled();
+            event.nodesVisited = result.getNodesVisited();
+            event.pathLength = result.getPathLength();
+            event.commit();
+        }
+        return result;
+    }
+    
+    private int cellOf(Node node) {
+        return node.getX() * gridSize + node.getY();
+    }
+    
+    /**
+     * Display Node of a cell (only used for coloring).
+     */
+    private Node nodeAt(int cell) {
+        return display[cell / gridSize][cell % gridSize];
+    }
+    
+    /**
+     * Manhattan distance between two cells.
+     */
+    private int heuristic(int cell, int goal) {
+        return Math.abs(cell / gridSize - goal / gridSize) + Math.abs(cell % gridSize - goal % gridSize);
+    }
+    
+    /**
+     * Shortest distance between two cells on an open grid under the current connectivity:
+     * Manhattan with four directions, octile (diagonals first, then straight) with eight.
+     */
+    private double estimate(int cell, int goal) {
+        if (!connectivity.hasDiagonals()) return heuristic(cell, goal);
+        int dx = Math.abs(cell / gridSize - goal / gridSize);
+        int dy = Math.abs(cell % gridSize - goal % gridSize);
+        return Math.max(dx, dy) + (SQRT2 - 1) * Math.min(dx, dy);
+    }
+    
+    /**
+     * Straight-line distance between the centers of two cells.
+     */
+    private double euclidean(int cell, int goal) {
+        int dx = cell / gridSize - goal / gridSize;
+        int dy = cell % gridSize - goal % gridSize;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+    
+    /**
+     * Records an expansion in the profile, if any, and colors the cell (start, end
+     * and already-colored cells are left alone).
+     */
+    private void markVisited(int cell) {
+        if (recording != null) recording.expanded(cell);
+        if (panel == null || colored.get(cell)) return;
+        colored.set(cell);
+        recolor(nodeAt(cell), UNEXPLORED, Node.State.VISITED);
+        visualize();
+    }
+    
+    /**
+     * Sets the display state of a Node if it is still in one of the given states.
+     * Runs on the event thread, the only thread writing display Nodes, so walls drawn
+     * while the animation runs are never overwritten. Colors still queued when the run
+     * is cancelled are dropped, so a grid cleared after cancelling stays clear.
+     */
+    private void recolor(Node node, Set<Node.State> from, Node.State to) {
+        SearchToken run = token;
+        SwingUtilities.invokeLater(() -> {
+            if (!run.isCancelled() && from.contains(node.getState())) {
+                node.setState(to);
+            }
+        });
+    }
+    
+    /**
+     * Polls the search token. While animating every call is checked (the sleep
+     * dominates anyway); otherwise only every CHECKPOINT_MASK + 1 calls.
+     * Each checkpoint also samples the frontier size for the flight recorder.
+     */
+    private boolean shouldStop(int nodesVisited, int frontierSize) {
+        if (delay == 0 && (++checkpointCounter & CHECKPOINT_MASK) != 0) {
+            return false;
+        }
+        SearchEvents.FrontierSample sample = new SearchEvents.FrontierSample();
+        if (sample.isEnabled()) {
+            sample.algorithm = algorithmName;
+            sample.nodesVisited = nodesVisited;
+            sample.frontierSize = frontierSize;
+            sample.commit();
+        }
+        return token.checkpoint(nodesVisited);
     }
     
     /**
      * Updates the panel display and adds delay for visualization.
+     * The delay is skipped once the run has been cancelled.
      */
     private void visualize() {
+        if (panel == null) return;
         SwingUtilities.invokeLater(() -> panel.repaint());
+        if (delay == 0 || token.isCancelled()) return;
+        SearchEvents.VisualizationWait wait = new SearchEvents.VisualizationWait();
+        wait.begin();
         try {
             Thread.sleep(delay);
         } catch (InterruptedException e) {
+            // An interrupt is treated as a cancellation request
+            token.cancel();
             Thread.currentThread().interrupt();
         }
+        wait.delay = delay;
+        wait.commit();
     }
-}
\ No newline at end of file
+}
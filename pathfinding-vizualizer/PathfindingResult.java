@@ -1,15 +1,83 @@
+import java.nio.IntBuffer;
+
 /**
  * Stores the results of a pathfinding algorithm execution
+ *
+ * A found route is kept as a packed array of cell indices (x * gridSize + y) from
+ * the start to the end, both included, written straight from the search's parent
+ * pointers. getPath() exposes it as a read-only view without copying. Its cost is
+ * the length of the route: one per straight move, √2 per diagonal, or the length of
+ * the straight segments of an any-angle search.
  */
 public class PathfindingResult {
+    private static final int[] NO_PATH = new int[0];
+    
     private final boolean success;
     private final int nodesVisited;
     private final int pathLength;
+    private final double cost;
+    private final double suboptimalityBound; // Path cost is at most this factor times optimal
+    private final boolean cancelled;
+    private final int[] path;
+    private final int gridSize;
     
     public PathfindingResult(boolean success, int nodesVisited, int pathLength) {
+        this(success, nodesVisited, pathLength, 1.0);
+    }
+    
+    public PathfindingResult(boolean success, int nodesVisited, int pathLength, double suboptimalityBound) {
+        this(success, nodesVisited, pathLength, 0, suboptimalityBound, false, NO_PATH, 0);
+    }
+    
+    private PathfindingResult(boolean success, int nodesVisited, int pathLength, double cost,
+                              double suboptimalityBound, boolean cancelled, int[] path, int gridSize) {
         this.success = success;
         this.nodesVisited = nodesVisited;
         this.pathLength = pathLength;
+        this.cost = cost;
+        this.suboptimalityBound = suboptimalityBound;
+        this.cancelled = cancelled;
+        this.path = path;
+        this.gridSize = gridSize;
+    }
+    
+    /**
+     * Result of a search that was stopped by its SearchToken before finishing.
+     */
+    public static PathfindingResult cancelled(int nodesVisited) {
+        return new PathfindingResult(false, nodesVisited, 0, 0, 1.0, true, NO_PATH, 0);
+    }
+    
+    /**
+     * Result of a search that found the given route (cells from start to end).
+     * The array is kept, not copied.
+     */
+    public static PathfindingResult found(int nodesVisited, int[] path, int gridSize) {
+        return found(nodesVisited, path, gridSize, 1.0);
+    }
+    
+    public static PathfindingResult found(int nodesVisited, int[] path, int gridSize, double suboptimalityBound) {
+        return found(nodesVisited, path, gridSize, suboptimalityBound, movesLength(path, gridSize));
+    }
+    
+    /**
+     * Result of a search whose route costs something other than the sum of its moves
+     * (an any-angle path listing the cells its segments cross).
+     */
+    public static PathfindingResult found(int nodesVisited, int[] path, int gridSize, double suboptimalityBound,
+                                          double cost) {
+        // The path length counts the cells strictly between start and end
+        return new PathfindingResult(true, nodesVisited, Math.max(0, path.length - 2), cost, suboptimalityBound,
+            false, path, gridSize);
+    }
+    
+    /**
+     * Same route and bound with a different expansion count (e.g. the total over
+     * all iterations of an anytime search).
+     */
+    public PathfindingResult withNodesVisited(int nodesVisited) {
+        return new PathfindingResult(success, nodesVisited, pathLength, cost, suboptimalityBound, cancelled,
+            path, gridSize);
     }
     
     public boolean isSuccess() {
@@ -24,9 +92,83 @@ public class PathfindingResult {
         return pathLength;
     }
     
+    /**
+     * Length of the route (0 if there is none, or the result was built from a length only).
+     */
+    public double getCost() {
+        return cost;
+    }
+    
+    public double getSuboptimalityBound() {
+        return suboptimalityBound;
+    }
+    
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    /**
+     * Read-only view of the route: cell indices x * gridSize + y from start to end.
+     * Empty if no path was found (or the result was built from a length only).
+     */
+    public IntBuffer getPath() {
+        return IntBuffer.wrap(path).asReadOnlyBuffer();
+    }
+    
+    /**
+     * The route compressed to waypoints: start, every cell where the direction
+     * changes, and end. Walking straight between consecutive waypoints gives the
+     * full route back.
+     */
+    public IntBuffer getWaypoints() {
+        if (path.length <= 2) {
+            return getPath();
+        }
+        int[] waypoints = new int[path.length];
+        int count = 0;
+        waypoints[count++] = path[0];
+        for (int i = 1; i < path.length - 1; i++) {
+            if (path[i] - path[i - 1] != path[i + 1] - path[i]) {
+                waypoints[count++] = path[i];
+            }
+        }
+        waypoints[count++] = path[path.length - 1];
+        return IntBuffer.wrap(waypoints, 0, count).slice().asReadOnlyBuffer();
+    }
+    
+    /**
+     * Side of the grid the cell indices refer to (0 if there is no route).
+     */
+    public int getGridSize() {
+        return gridSize;
+    }
+    
+    /**
+     * Sum of the moves between consecutive cells: 1 straight, √2 diagonally.
+     */
+    private static double movesLength(int[] path, int gridSize) {
+        int straight = 0;
+        int diagonal = 0;
+        for (int i = 1; i < path.length; i++) {
+            int step = Math.abs(path[i] - path[i - 1]);
+            if (step == 1 || step == gridSize) straight++;
+            else diagonal++;
+        }
+        return straight + diagonal * Math.sqrt(2);
+    }
+    
     @Override
     public String toString() {
-        if (success) {
+        if (cancelled) {
+            return String.format("Search stopped before finishing. Nodes visited: %d", nodesVisited);
+        } else if (success && suboptimalityBound > 1.0) {
+            return String.format("Path found! Nodes visited: %d, Path length: %d (within %.1fx of optimal)", 
+                               nodesVisited, pathLength, suboptimalityBound);
+        } else if (success && path.length > 0 && cost != path.length - 1) {
+            // Diagonal or any-angle moves: the cell count alone does not give the length
+            return String.format("Path found! Nodes visited: %d, Path length: %d, Cost: %.2f",
+                               nodesVisited, pathLength, cost);
+        } else if (success) {
             return String.format("Path found! Nodes visited: %d, Path length: %d", 
                                nodesVisited, pathLength);
         } else {
@@ -0,0 +1,245 @@
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Local HTTP front end of RouteService, built on the JDK's com.sun.net.httpserver.
+ *
+ * Usage:
+ *   java RouteServer <map.grid|map.map> [--port 8080] [--threads N] [--prune-dead-ends true]
+ *                    [--goal-bounds map.bounds]
+ *
+ * Endpoints (all answers are JSON):
+ *   GET  /route?sx=5&sy=5&ex=40&ey=12[&algorithm=A*][&connectivity=4|8|8-cut][&waypoints=true]
+ *        {"version":1,"success":true,"nodesVisited":120,"pathLength":41,"cost":42.0,"path":[[5,5],[5,6],...]}
+ *   POST /walls   one "x y 1" (wall) or "x y 0" (open) per line, applied as one new version
+ *        {"version":2}
+ *   GET  /status  {"version":2,"gridSize":512,"queries":123456,"goalBounds":false}
+ *
+ * Requests run on a virtual thread each when the JDK has them (21+), otherwise on a
+ * fixed pool of --threads platform threads (default: one per processor).
+ *
+ * --goal-bounds loads the A* goal bounds from the file, or computes and saves them there
+ * if the file is missing or was made for other walls. They hold until the first wall update.
+ */
+public class RouteServer {
+    
+    private final RouteService service;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String executorDescription;
+    
+    public RouteServer(RouteService service, int port, int threads) throws IOException {
+        this.service = service;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.executor = virtual != null ? virtual : Executors.newFixedThreadPool(threads);
+        this.executorDescription = virtual != null ? "virtual threads" : threads + " platform threads";
+        
+        server.setExecutor(executor);
+        server.createContext("/route", exchange -> handle(exchange, "GET", this::route));
+        server.createContext("/walls", exchange -> handle(exchange, "POST", this::walls));
+        server.createContext("/status", exchange -> handle(exchange, "GET", this::status));
+    }
+    
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args[0].startsWith("--")) {
+            System.err.println("Usage: java RouteServer <map.grid|map.map> [--port 8080] [--threads N]"
+                + " [--prune-dead-ends true] [--goal-bounds map.bounds]");
+            System.exit(1);
+        }
+        Path mapPath = Paths.get(args[0]);
+        int port = 8080;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean pruneDeadEnds = false;
+        Path boundsPath = null;
+        for (int i = 1; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                System.err.println("Missing value for " + args[i]);
+                System.exit(1);
+            }
+            switch (args[i]) {
+                case "--port":            port = Integer.parseInt(args[i + 1]); break;
+                case "--threads":         threads = Integer.parseInt(args[i + 1]); break;
+                case "--prune-dead-ends": pruneDeadEnds = Boolean.parseBoolean(args[i + 1]); break;
+                case "--goal-bounds":     boundsPath = Paths.get(args[i + 1]); break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+        
+        GridSnapshot snapshot = mapPath.toString().endsWith(".map")
+            ? GridSnapshot.of(MovingAIMap.load(mapPath), pruneDeadEnds)
+            : GridSnapshot.of(GridFile.load(mapPath), pruneDeadEnds);
+        if (boundsPath != null) {
+            long begin = System.nanoTime();
+            snapshot = snapshot.withGoalBounds(boundsPath, threads);
+            System.err.printf("Goal bounds ready in %d ms%n", (System.nanoTime() - begin) / 1_000_000);
+        }
+        RouteServer server = new RouteServer(new RouteService(snapshot), port, threads);
+        server.start();
+        System.err.printf("Serving %s (%dx%d) on http://localhost:%d/ with %s%n", mapPath.getFileName(),
+            snapshot.getGridSize(), snapshot.getGridSize(), server.getPort(), server.executorDescription);
+    }
+    
+    public void start() {
+        server.start();
+    }
+    
+    /**
+     * Stops accepting requests, waits up to the given delay for running ones, then
+     * shuts the executor down.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+    
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() if this JDK has it, else null.
+     * Looked up reflectively so the server still compiles and runs on JDK 17.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            // Not available, or a preview feature that is not enabled
+            return null;
+        }
+    }
+    
+    private interface Endpoint {
+        String answer(HttpExchange exchange) throws IOException;
+    }
+    
+    private void handle(HttpExchange exchange, String method, Endpoint endpoint) throws IOException {
+        try (exchange) {
+            int status = 200;
+            String body;
+            if (!exchange.getRequestMethod().equals(method)) {
+                status = 405;
+                body = error("use " + method);
+            } else {
+                try {
+                    body = endpoint.answer(exchange);
+                } catch (IllegalArgumentException e) {
+                    status = 400;
+                    body = error(e.getMessage());
+                } catch (RuntimeException e) {
+                    status = 500;
+                    body = error(e.toString());
+                }
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+    
+    private String route(HttpExchange exchange) {
+        Map<String, String> params = queryParameters(exchange);
+        SearchAlgorithm algorithm = SearchAlgorithm.fromName(params.getOrDefault("algorithm", "A*"));
+        Connectivity connectivity = Connectivity.fromName(params.getOrDefault("connectivity", "4"));
+        RouteService.Route route = service.route(intParam(params, "sx"), intParam(params, "sy"),
+            intParam(params, "ex"), intParam(params, "ey"), algorithm, connectivity);
+        PathfindingResult result = route.getResult();
+        
+        StringBuilder json = new StringBuilder(64 + 16 * result.getPathLength());
+        json.append("{\"version\":").append(route.getVersion())
+            .append(",\"success\":").append(result.isSuccess())
+            .append(",\"nodesVisited\":").append(result.getNodesVisited())
+            .append(",\"pathLength\":").append(result.getPathLength())
+            .append(",\"cost\":").append(result.getCost())
+            .append(",\"path\":[");
+        IntBuffer path = Boolean.parseBoolean(params.get("waypoints")) ? result.getWaypoints() : result.getPath();
+        int gridSize = result.getGridSize();
+        for (int i = 0; i < path.remaining(); i++) {
+            int cell = path.get(i);
+            json.append(i == 0 ? "[" : ",[").append(cell / gridSize).append(',').append(cell % gridSize).append(']');
+        }
+        return json.append("]}").toString();
+    }
+    
+    private String walls(HttpExchange exchange) throws IOException {
+        int gridSize = service.getSnapshot().getGridSize();
+        List<int[]> changes = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("expected \"x y 0|1\", got \"" + line + "\"");
+                }
+                int x = parseInt(parts[0], "x");
+                int y = parseInt(parts[1], "y");
+                if (x < 0 || y < 0 || x >= gridSize || y >= gridSize) {
+                    throw new IllegalArgumentException("(" + x + "," + y + ") is outside the grid");
+                }
+                changes.add(new int[] {x * gridSize + y, parseInt(parts[2], "wall")});
+            }
+        }
+        int[] cells = new int[changes.size()];
+        boolean[] walls = new boolean[changes.size()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = changes.get(i)[0];
+            walls[i] = changes.get(i)[1] != 0;
+        }
+        return "{\"version\":" + service.updateWalls(cells, walls) + "}";
+    }
+    
+    private String status(HttpExchange exchange) {
+        GridSnapshot snapshot = service.getSnapshot();
+        return "{\"version\":" + snapshot.getVersion() + ",\"gridSize\":" + snapshot.getGridSize()
+            + ",\"queries\":" + service.getQueryCount() + ",\"goalBounds\":" + snapshot.hasGoalBounds() + "}";
+    }
+    
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return params;
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals < 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+    
+    private static int intParam(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("missing parameter " + name);
+        }
+        return parseInt(value, name);
+    }
+    
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " is not a number: " + value);
+        }
+    }
+    
+    private static String error(String message) {
+        return "{\"error\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+}
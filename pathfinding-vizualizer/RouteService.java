@@ -0,0 +1,109 @@
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe route queries over a shared GridSnapshot.
+ *
+ * Any number of threads may call route() at once: each query reads the current
+ * snapshot once and runs a headless search on it with a context borrowed from the
+ * shared SearchContextPool, so steady-state queries allocate little beyond the
+ * returned path. Wall updates build the next snapshot and swap it in atomically;
+ * queries that started earlier finish on the version they began with, and every
+ * answer reports that version.
+ */
+public class RouteService {
+    private final AtomicReference<GridSnapshot> snapshot;
+    private final LongAdder queries = new LongAdder();
+    
+    public RouteService(GridSnapshot initial) {
+        this.snapshot = new AtomicReference<>(initial);
+    }
+    
+    /**
+     * A search result together with the grid version it was computed on.
+     */
+    public static final class Route {
+        private final long version;
+        private final PathfindingResult result;
+        
+        private Route(long version, PathfindingResult result) {
+            this.version = version;
+            this.result = result;
+        }
+        
+        public long getVersion() {
+            return version;
+        }
+        
+        public PathfindingResult getResult() {
+            return result;
+        }
+    }
+    
+    /**
+     * Finds a route on the current snapshot, moving in four directions.
+     *
+     * @throws IllegalArgumentException if an endpoint is outside the grid or on a wall,
+     *         or the algorithm cannot run per query (HDA* starts its own threads)
+     */
+    public Route route(int startX, int startY, int endX, int endY, SearchAlgorithm algorithm) {
+        return route(startX, startY, endX, endY, algorithm, Connectivity.FOUR);
+    }
+    
+    /**
+     * Finds a route on the current snapshot; A*, Dijkstra and Theta* move as the
+     * connectivity allows, the other searches in four directions.
+     */
+    public Route route(int startX, int startY, int endX, int endY, SearchAlgorithm algorithm,
+                       Connectivity connectivity) {
+        if (algorithm == SearchAlgorithm.HDA_STAR) {
+            throw new IllegalArgumentException("HDA* is not available per query; concurrent queries already use every core");
+        }
+        GridSnapshot current = snapshot.get();
+        checkEndpoint(current, startX, startY, "start");
+        checkEndpoint(current, endX, endY, "end");
+        
+        try (PathfindingAlgorithm pathfinder = current.newSearch(connectivity)) {
+            if (algorithm == SearchAlgorithm.SUBGOAL_GRAPH) {
+                pathfinder.setSubgoalGraph(current.getSubgoalGraph());
+            }
+            PathfindingResult result = algorithm.run(pathfinder,
+                current.nodeAt(startX, startY), current.nodeAt(endX, endY));
+            queries.increment();
+            return new Route(current.getVersion(), result);
+        }
+    }
+    
+    /**
+     * Sets cells (x * gridSize + y) to wall or open in one new version and publishes it.
+     * Updates are serialized; queries are never blocked.
+     *
+     * @return the new version
+     */
+    public synchronized long updateWalls(int[] cells, boolean[] walls) {
+        GridSnapshot next = snapshot.get().withWalls(cells, walls);
+        snapshot.set(next);
+        return next.getVersion();
+    }
+    
+    public GridSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+    
+    /**
+     * Number of queries answered so far.
+     */
+    public long getQueryCount() {
+        return queries.sum();
+    }
+    
+    private static void checkEndpoint(GridSnapshot grid, int x, int y, String name) {
+        int size = grid.getGridSize();
+        if (x < 0 || y < 0 || x >= size || y >= size) {
+            throw new IllegalArgumentException(name + " (" + x + "," + y + ") is outside the " + size + "x" + size + " grid");
+        }
+        if (!grid.isWalkable(x, y)) {
+            throw new IllegalArgumentException(name + " (" + x + "," + y + ") is a wall");
+        }
+    }
+}
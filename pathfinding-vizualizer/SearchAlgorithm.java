@@ -0,0 +1,89 @@
+/**
+ * The searches offered by PathfindingAlgorithm, in the visualizer's menu order.
+ * Shared by the GUI and the headless runners so both name and dispatch them the same way.
+ */
+public enum SearchAlgorithm {
+    GREEDY_BEST_FIRST("Greedy Best-First", false),
+    A_STAR("A*", true),
+    FRINGE("Fringe Search", true),
+    SUBGOAL_GRAPH("Subgoal Graph", true),
+    THETA_STAR("Theta* (Any-Angle)", false),
+    HDA_STAR("HDA* (Parallel)", true),
+    IDA_STAR("IDA*", true),
+    SMA_STAR("SMA*", true),
+    ARA_STAR("ARA* (Anytime)", false),
+    DIJKSTRA("Dijkstra", true),
+    BFS("BFS", true),
+    BELLMAN_FORD("Bellman-Ford", true),
+    DFS("DFS", false);
+    
+    // Time budget for ARA* when it is run without an explicit one
+    public static final long DEFAULT_ANYTIME_BUDGET_MS = 5;
+    
+    private final String displayName;
+    private final boolean optimal;
+    
+    SearchAlgorithm(String displayName, boolean optimal) {
+        this.displayName = displayName;
+        this.optimal = optimal;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    /**
+     * Whether the algorithm always returns a shortest path (given enough memory).
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+    
+    /**
+     * Whether the search moves as set by PathfindingAlgorithm.setConnectivity; all
+     * others always move in four directions.
+     */
+    public boolean usesConnectivity() {
+        return this == A_STAR || this == DIJKSTRA || this == THETA_STAR;
+    }
+    
+    /**
+     * Runs this search.
+     */
+    public PathfindingResult run(PathfindingAlgorithm pathfinder, Node start, Node end) {
+        switch (this) {
+            case GREEDY_BEST_FIRST: return pathfinder.greedyBestFirst(start, end);
+            case A_STAR:            return pathfinder.aStar(start, end);
+            case FRINGE:            return pathfinder.fringeSearch(start, end);
+            case SUBGOAL_GRAPH:     return pathfinder.subgoalGraph(start, end);
+            case THETA_STAR:        return pathfinder.thetaStar(start, end);
+            case HDA_STAR:          return pathfinder.hdaStar(start, end);
+            case IDA_STAR:          return pathfinder.idaStar(start, end);
+            case SMA_STAR:          return pathfinder.smaStar(start, end);
+            case ARA_STAR:          return pathfinder.anytimeAStar(start, end, DEFAULT_ANYTIME_BUDGET_MS, null);
+            case DIJKSTRA:          return pathfinder.dijkstra(start, end);
+            case BFS:               return pathfinder.bfs(start, end);
+            case BELLMAN_FORD:      return pathfinder.bellmanFord(start, end);
+            case DFS:               return pathfinder.dfs(start, end);
+            default:                throw new IllegalStateException("Unknown algorithm: " + this);
+        }
+    }
+    
+    /**
+     * Looks an algorithm up by display name ("A*") or constant name ("a_star"), ignoring case.
+     */
+    public static SearchAlgorithm fromName(String name) {
+        String trimmed = name.trim();
+        for (SearchAlgorithm algorithm : values()) {
+            if (algorithm.displayName.equalsIgnoreCase(trimmed) || algorithm.name().equalsIgnoreCase(trimmed)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown algorithm: " + name);
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
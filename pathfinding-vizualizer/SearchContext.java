@@ -0,0 +1,297 @@
+import java.util.Arrays;
+
+/**
+ * Per-cell scratch state for one search, reusable across many searches.
+ *
+ * Cells are addressed by index (x * gridSize + y). Instead of clearing every array
+ * before a search, begin() bumps a generation counter: a cell whose stamp differs
+ * from the current generation reads as untouched (g = infinity, no parent, no flags).
+ * A search therefore costs time proportional to the cells it touches, not to the
+ * size of the map.
+ *
+ * The context also owns the open list (an indexed binary min-heap with decrease-key)
+ * and an int work queue, so repeated searches allocate nothing.
+ *
+ * Not thread-safe: one context serves one search at a time. Use SearchContextPool
+ * to share contexts between short-lived searches.
+ */
+public class SearchContext {
+    
+    // Per-cell flags
+    public static final int CLOSED = 1;
+    public static final int SEEN = 1 << 1;          // Discovered (BFS/DFS) or queued (SPFA)
+    public static final int IN_QUEUE = 1 << 2;      // Currently in the work queue (SPFA, Fringe)
+    public static final int FORGOTTEN = 1 << 3;     // Dropped leaf (SMA*)
+    public static final int REQUEUED = 1 << 4;      // Expanded node queued again (SMA*)
+    public static final int INCONSISTENT = 1 << 5;  // Improved after closing (ARA*)
+    public static final int LINKED = 1 << 6;        // Has an edge to the goal (subgoal graph)
+    
+    public static final int NO_PARENT = -1;
+    
+    private final int cellCount;
+    private int generation;
+    private final int[] stamp;
+    private final double[] g;
+    private final int[] parent;
+    private final byte[] flags;
+    
+    // Lazily allocated, only some algorithms need them
+    private int[] counter;
+    private double[] f;
+    private int[] queue;
+    private int[] aux;
+    
+    // Indexed binary min-heap over cells
+    private int[] heap;
+    private int[] heapIndex;
+    private double[] key;
+    private int heapSize;
+    
+    // Counts every update() while a search is being profiled (see SearchProfile)
+    private SearchProfile profile;
+    
+    public SearchContext(int cellCount) {
+        this.cellCount = cellCount;
+        this.stamp = new int[cellCount];
+        this.g = new double[cellCount];
+        this.parent = new int[cellCount];
+        this.flags = new byte[cellCount];
+    }
+    
+    public int getCellCount() {
+        return cellCount;
+    }
+    
+    /**
+     * Starts a new search: every cell reads as untouched afterwards.
+     */
+    public void begin() {
+        generation++;
+        if (generation == 0) {
+            // Wrapped around after 2^32 searches: clear the stamps once for real
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        heapSize = 0;
+    }
+    
+    /**
+     * Brings a cell into the current generation, resetting it lazily.
+     */
+    private void touch(int cell) {
+        if (stamp[cell] != generation) {
+            stamp[cell] = generation;
+            g[cell] = Double.MAX_VALUE;
+            parent[cell] = NO_PARENT;
+            flags[cell] = 0;
+            if (counter != null) counter[cell] = 0;
+        }
+    }
+    
+    public boolean isTouched(int cell) {
+        return stamp[cell] == generation;
+    }
+    
+    // --- Costs and parents ---
+    
+    public double getG(int cell) {
+        return stamp[cell] == generation ? g[cell] : Double.MAX_VALUE;
+    }
+    
+    public int getParent(int cell) {
+        return stamp[cell] == generation ? parent[cell] : NO_PARENT;
+    }
+    
+    public void update(int cell, double cost, int parentCell) {
+        touch(cell);
+        g[cell] = cost;
+        parent[cell] = parentCell;
+        if (profile != null) profile.relaxed(cell);
+    }
+    
+    /**
+     * Attaches the profile that counts relaxations (null to stop counting).
+     */
+    void setProfile(SearchProfile profile) {
+        this.profile = profile;
+    }
+    
+    // --- Flags ---
+    
+    public boolean has(int cell, int flag) {
+        return stamp[cell] == generation && (flags[cell] & flag) != 0;
+    }
+    
+    public void set(int cell, int flag) {
+        touch(cell);
+        flags[cell] |= flag;
+    }
+    
+    public void clear(int cell, int flag) {
+        if (stamp[cell] == generation) {
+            flags[cell] &= ~flag;
+        }
+    }
+    
+    // --- Per-cell counter (relaxation counts, iteration numbers) ---
+    
+    public int getCounter(int cell) {
+        return stamp[cell] == generation && counter != null ? counter[cell] : 0;
+    }
+    
+    public void setCounter(int cell, int value) {
+        if (counter == null) {
+            counter = new int[cellCount];
+        }
+        touch(cell);
+        counter[cell] = value;
+    }
+    
+    // --- Free-standing priority (SMA*'s backed-up f); only meaningful once set ---
+    
+    public double getF(int cell) {
+        return f[cell];
+    }
+    
+    public void setF(int cell, double value) {
+        if (f == null) {
+            f = new double[cellCount];
+        }
+        touch(cell);
+        f[cell] = value;
+    }
+    
+    // --- Work arrays (queue/stack storage, one entry per cell) ---
+    
+    public int[] queue() {
+        if (queue == null) {
+            queue = new int[cellCount];
+        }
+        return queue;
+    }
+    
+    public int[] aux() {
+        if (aux == null) {
+            aux = new int[cellCount];
+        }
+        return aux;
+    }
+    
+    // --- Open list: indexed min-heap keyed by a double priority ---
+    
+    /**
+     * Inserts a cell, or moves it if it is already in the heap with another key.
+     */
+    public void push(int cell, double priority) {
+        if (heap == null) {
+            heap = new int[cellCount];
+            heapIndex = new int[cellCount];
+            key = new double[cellCount];
+        }
+        touch(cell);
+        if (inOpen(cell)) {
+            double old = key[cell];
+            key[cell] = priority;
+            if (priority < old) siftUp(heapIndex[cell]);
+            else siftDown(heapIndex[cell]);
+            return;
+        }
+        key[cell] = priority;
+        heap[heapSize] = cell;
+        heapIndex[cell] = heapSize;
+        heapSize++;
+        siftUp(heapSize - 1);
+    }
+    
+    /**
+     * Removes and returns the cell with the smallest key.
+     */
+    public int pop() {
+        int top = heap[0];
+        removeAt(0);
+        return top;
+    }
+    
+    public int peek() {
+        return heap[0];
+    }
+    
+    public double peekKey() {
+        return key[heap[0]];
+    }
+    
+    public boolean inOpen(int cell) {
+        if (heap == null || stamp[cell] != generation) return false;
+        int index = heapIndex[cell];
+        return index < heapSize && heap[index] == cell;
+    }
+    
+    public boolean remove(int cell) {
+        if (!inOpen(cell)) return false;
+        removeAt(heapIndex[cell]);
+        return true;
+    }
+    
+    public boolean isOpenEmpty() {
+        return heapSize == 0;
+    }
+    
+    public int openSize() {
+        return heapSize;
+    }
+    
+    /**
+     * Cell stored at a heap slot (0 <= index < openSize()), for iterating the open list.
+     */
+    public int openCellAt(int index) {
+        return heap[index];
+    }
+    
+    public double getKey(int cell) {
+        return key[cell];
+    }
+    
+    private void removeAt(int index) {
+        heapSize--;
+        if (index == heapSize) return;
+        int last = heap[heapSize];
+        heap[index] = last;
+        heapIndex[last] = index;
+        siftDown(index);
+        siftUp(heapIndex[last]);
+    }
+    
+    private void siftUp(int index) {
+        int cell = heap[index];
+        double k = key[cell];
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            int parentCell = heap[parentIndex];
+            if (key[parentCell] <= k) break;
+            heap[index] = parentCell;
+            heapIndex[parentCell] = index;
+            index = parentIndex;
+        }
+        heap[index] = cell;
+        heapIndex[cell] = index;
+    }
+    
+    private void siftDown(int index) {
+        int cell = heap[index];
+        double k = key[cell];
+        int half = heapSize >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < heapSize && key[heap[right]] < key[heap[child]]) {
+                child = right;
+            }
+            if (k <= key[heap[child]]) break;
+            heap[index] = heap[child];
+            heapIndex[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = cell;
+        heapIndex[cell] = index;
+    }
+}
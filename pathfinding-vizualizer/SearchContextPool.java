@@ -0,0 +1,51 @@
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Thread-safe pool of SearchContexts, keyed by grid cell count.
+ *
+ * Contexts are expensive to allocate on big maps (several arrays per cell) but
+ * cheap to reuse thanks to generation stamping, so short-lived searches borrow
+ * one here and hand it back when done.
+ */
+public class SearchContextPool {
+    
+    private static final SearchContextPool SHARED =
+        new SearchContextPool(Runtime.getRuntime().availableProcessors() * 2);
+    
+    private final int maxIdlePerSize;
+    private final Map<Integer, Deque<SearchContext>> idle = new ConcurrentHashMap<>();
+    
+    public SearchContextPool(int maxIdlePerSize) {
+        this.maxIdlePerSize = maxIdlePerSize;
+    }
+    
+    /**
+     * Pool shared by all searches in this JVM.
+     */
+    public static SearchContextPool shared() {
+        return SHARED;
+    }
+    
+    /**
+     * Borrows a context for a grid with the given number of cells.
+     */
+    public SearchContext acquire(int cellCount) {
+        Deque<SearchContext> contexts = idle.get(cellCount);
+        SearchContext context = contexts != null ? contexts.pollFirst() : null;
+        return context != null ? context : new SearchContext(cellCount);
+    }
+    
+    /**
+     * Returns a context; it is dropped if enough contexts of its size are idle already.
+     */
+    public void release(SearchContext context) {
+        Deque<SearchContext> contexts =
+            idle.computeIfAbsent(context.getCellCount(), size -> new ConcurrentLinkedDeque<>());
+        if (contexts.size() < maxIdlePerSize) {
+            contexts.offerFirst(context);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder events emitted by the pathfinding engine.
+ *
+ * They cost next to nothing unless a recording is running. To profile a run:
+ *   jcmd <pid> JFR.start name=pf filename=pathfinding.jfr
+ *   jcmd <pid> JFR.stop name=pf
+ * and open the file in JDK Mission Control (Event Browser, category "Pathfinding"),
+ * or: jfr print --categories Pathfinding pathfinding.jfr
+ */
+public final class SearchEvents {
+    
+    private SearchEvents() {
+    }
+    
+    @Name("pathfinding.Search")
+    @Label("Search")
+    @Category("Pathfinding")
+    @Description("One search from start to end, including path reconstruction and visualization")
+    public static class Search extends Event {
+        @Label("Algorithm")
+        public String algorithm;
+        
+        @Label("Grid Size")
+        public int gridSize;
+        
+        @Label("Success")
+        public boolean success;
+        
+        @Label("Cancelled")
+        public boolean cancelled;
+        
+        @Label("Nodes Visited")
+        public int nodesVisited;
+        
+        @Label("Path Length")
+        public int pathLength;
+    }
+    
+    @Name("pathfinding.FrontierSample")
+    @Label("Frontier Sample")
+    @Category("Pathfinding")
+    @Description("Size of the open list (queue, stack or fringe), sampled at the search checkpoints")
+    @StackTrace(false)
+    public static class FrontierSample extends Event {
+        @Label("Algorithm")
+        public String algorithm;
+        
+        @Label("Nodes Visited")
+        public int nodesVisited;
+        
+        @Label("Frontier Size")
+        public int frontierSize;
+    }
+    
+    @Name("pathfinding.PathReconstruction")
+    @Label("Path Reconstruction")
+    @Category("Pathfinding")
+    @Description("Walking the parent pointers back from the end node (and drawing the path)")
+    @StackTrace(false)
+    public static class PathReconstruction extends Event {
+        @Label("Algorithm")
+        public String algorithm;
+        
+        @Label("Path Length")
+        public int pathLength;
+    }
+    
+    @Name("pathfinding.VisualizationWait")
+    @Label("Visualization Wait")
+    @Category("Pathfinding")
+    @Description("Time a search spends sleeping between animation steps")
+    @StackTrace(false)
+    public static class VisualizationWait extends Event {
+        @Label("Requested Delay")
+        @Timespan(Timespan.MILLISECONDS)
+        public long delay;
+    }
+    
+    @Name("pathfinding.GridRepaint")
+    @Label("Grid Repaint")
+    @Category("Pathfinding")
+    @Description("Painting the grid on the event dispatch thread")
+    @StackTrace(false)
+    public static class GridRepaint extends Event {
+        @Label("Grid Size")
+        public int gridSize;
+    }
+}
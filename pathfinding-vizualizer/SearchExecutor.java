@@ -0,0 +1,98 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Runs pathfinding searches one at a time on a dedicated worker thread.
+ *
+ * Two policies decide what happens when a run is submitted while another is active:
+ * - QUEUE:     the new run waits until the earlier ones have finished
+ * - SUPERSEDE: earlier runs (active and waiting) are cancelled and the new run goes next
+ *
+ * Every run gets its own SearchToken, which carries the cancellation flag, the
+ * per-run deadline and the progress listener.
+ */
+public class SearchExecutor {
+    
+    public enum Policy { QUEUE, SUPERSEDE }
+    
+    private final Policy policy;
+    private final ExecutorService worker;
+    private final Set<SearchToken> pending = ConcurrentHashMap.newKeySet();
+    
+    public SearchExecutor(Policy policy) {
+        this.policy = policy;
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Submits a search run.
+     *
+     * @param search          the search to run; it must poll the token it is given
+     * @param timeoutMillis   per-run deadline (0 = none), counted from when the run starts
+     * @param progress        receives the number of nodes visited so far (may be null)
+     * @param onFinished      receives the result, including cancelled runs that had started
+     * @param onError         receives anything the search throws (may be null: it is printed)
+     * @return the token of the new run, which can be used to cancel it
+     */
+    public SearchToken submit(Function<SearchToken, PathfindingResult> search, long timeoutMillis,
+                              IntConsumer progress, Consumer<PathfindingResult> onFinished,
+                              Consumer<Throwable> onError) {
+        if (policy == Policy.SUPERSEDE) {
+            cancelAll();
+        }
+        
+        SearchToken token = new SearchToken(timeoutMillis, progress);
+        pending.add(token);
+        
+        // execute, not submit: a Future would swallow whatever the search throws
+        worker.execute(() -> {
+            try {
+                // Superseded or cancelled while waiting
+                if (token.isCancelled()) return;
+                
+                PathfindingResult result = search.apply(token);
+                if (onFinished != null) {
+                    onFinished.accept(result);
+                }
+            } catch (Throwable t) {
+                if (onError != null) {
+                    onError.accept(t);
+                } else {
+                    t.printStackTrace();
+                }
+            } finally {
+                pending.remove(token);
+            }
+        });
+        return token;
+    }
+    
+    /**
+     * Cancels the active run and every run still waiting.
+     */
+    public void cancelAll() {
+        for (SearchToken token : pending) {
+            token.cancel();
+        }
+    }
+    
+    /**
+     * Returns true while a run is active or waiting.
+     */
+    public boolean isBusy() {
+        return !pending.isEmpty();
+    }
+    
+    /**
+     * Cancels everything and stops the worker thread.
+     */
+    public void shutdown() {
+        cancelAll();
+        worker.shutdown();
+    }
+}
@@ -0,0 +1,142 @@
+import java.util.Arrays;
+
+/**
+ * Per-cell effort of one search, drawn by the visualizer's heatmap overlay.
+ *
+ * Filled while a headless search runs (no animation, so the timings are the search's
+ * own) and read once afterwards. Cells are addressed by index (x * gridSize + y):
+ * - expansion order: rank of the cell's first expansion, 1 for the start
+ * - expansions: how often the cell was expanded (SPFA, IDA*, SMA* and ARA* come back)
+ * - relaxations: how often its cost was set or improved, i.e. it was pushed or
+ *   decrease-keyed (Dijkstra's duplicates, SPFA's repeated improvements)
+ * - first visit: nanoseconds from the start of the search to the first expansion
+ *
+ * A profile is reused by every search it is attached to (see
+ * PathfindingAlgorithm.setProfile) and only holds the most recent one.
+ */
+public class SearchProfile {
+    
+    public enum Metric {
+        EXPANSION_ORDER("Expansion order"),
+        EXPANSIONS("Expansions"),
+        RELAXATIONS("Relaxations"),
+        FIRST_VISIT("First visit time");
+        
+        private final String displayName;
+        
+        Metric(String displayName) {
+            this.displayName = displayName;
+        }
+        
+        public String getDisplayName() {
+            return displayName;
+        }
+        
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+    
+    private final int cellCount;
+    private final int[] expansionOrder;  // 0 = never expanded
+    private final int[] expansions;
+    private final int[] relaxations;
+    private final long[] firstVisit;     // Nanoseconds after the start, valid where expansionOrder > 0
+    
+    private String algorithm = "";
+    private long startTime;
+    private int expandedCells;
+    private long totalExpansions;
+    private long totalRelaxations;
+    
+    public SearchProfile(int cellCount) {
+        this.cellCount = cellCount;
+        this.expansionOrder = new int[cellCount];
+        this.expansions = new int[cellCount];
+        this.relaxations = new int[cellCount];
+        this.firstVisit = new long[cellCount];
+    }
+    
+    public int getCellCount() {
+        return cellCount;
+    }
+    
+    /**
+     * Clears the counts for a new search.
+     */
+    void begin(String algorithm) {
+        this.algorithm = algorithm;
+        Arrays.fill(expansionOrder, 0);
+        Arrays.fill(expansions, 0);
+        Arrays.fill(relaxations, 0);
+        expandedCells = 0;
+        totalExpansions = 0;
+        totalRelaxations = 0;
+        startTime = System.nanoTime();
+    }
+    
+    void expanded(int cell) {
+        totalExpansions++;
+        if (expansions[cell]++ == 0) {
+            expansionOrder[cell] = ++expandedCells;
+            firstVisit[cell] = System.nanoTime() - startTime;
+        }
+    }
+    
+    void relaxed(int cell) {
+        totalRelaxations++;
+        relaxations[cell]++;
+    }
+    
+    public String getAlgorithm() {
+        return algorithm;
+    }
+    
+    public boolean wasExpanded(int cell) {
+        return expansionOrder[cell] != 0;
+    }
+    
+    /**
+     * Value of a metric at a cell; 0 where it does not apply (first visit of a cell
+     * that was never expanded).
+     */
+    public long get(Metric metric, int cell) {
+        switch (metric) {
+            case EXPANSION_ORDER: return expansionOrder[cell];
+            case EXPANSIONS:      return expansions[cell];
+            case RELAXATIONS:     return relaxations[cell];
+            default:              return expansionOrder[cell] != 0 ? firstVisit[cell] : 0;
+        }
+    }
+    
+    /**
+     * Largest value of a metric over all cells.
+     */
+    public long max(Metric metric) {
+        long max = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            max = Math.max(max, get(metric, cell));
+        }
+        return max;
+    }
+    
+    public int getExpandedCells() {
+        return expandedCells;
+    }
+    
+    public long getTotalExpansions() {
+        return totalExpansions;
+    }
+    
+    public long getTotalRelaxations() {
+        return totalRelaxations;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s: %d cells expanded, %d expansions (max %d on one cell), "
+            + "%d relaxations (max %d on one cell)", algorithm, expandedCells, totalExpansions,
+            max(Metric.EXPANSIONS), totalRelaxations, max(Metric.RELAXATIONS));
+    }
+}
@@ -0,0 +1,78 @@
+import java.util.function.IntConsumer;
+
+/**
+ * Cooperative cancellation token for a single search run.
+ *
+ * The searches poll it through checkpoint() at a cheap cadence; it answers whether
+ * the run should stop (cancelled or past its deadline) and forwards throttled
+ * progress updates (nodes visited so far) to an optional listener.
+ */
+public class SearchToken {
+    
+    // Minimum time between two progress reports
+    private static final long PROGRESS_INTERVAL_NANOS = 100_000_000L;
+    
+    private final long timeoutNanos;        // 0 = no deadline
+    private final IntConsumer progressListener;
+    private long deadlineNanos;             // Armed by the first checkpoint
+    private volatile boolean cancelled;
+    private volatile boolean timedOut;
+    private long lastProgressNanos;
+    
+    /**
+     * Creates a token that is never cancelled unless cancel() is called.
+     */
+    public SearchToken() {
+        this(0, null);
+    }
+    
+    /**
+     * Creates a token with an optional timeout (0 = none) and progress listener.
+     * The timeout counts from the first checkpoint, i.e. from when the search starts.
+     */
+    public SearchToken(long timeoutMillis, IntConsumer progressListener) {
+        this.timeoutNanos = Math.max(0, timeoutMillis) * 1_000_000L;
+        this.progressListener = progressListener;
+    }
+    
+    /**
+     * Requests the run to stop at its next checkpoint.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+    
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+    
+    /**
+     * Called by the searches while they run.
+     * Returns true if the search should stop now.
+     */
+    public boolean checkpoint(int nodesVisited) {
+        if (cancelled) return true;
+        
+        if (timeoutNanos != 0 || progressListener != null) {
+            long now = System.nanoTime();
+            
+            if (timeoutNanos != 0 && deadlineNanos == 0) {
+                deadlineNanos = now + timeoutNanos;
+            } else if (timeoutNanos != 0 && now - deadlineNanos > 0) {
+                timedOut = true;
+                cancelled = true;
+                return true;
+            }
+            
+            if (progressListener != null && now - lastProgressNanos >= PROGRESS_INTERVAL_NANOS) {
+                lastProgressNanos = now;
+                progressListener.accept(nodesVisited);
+            }
+        }
+        return false;
+    }
+}
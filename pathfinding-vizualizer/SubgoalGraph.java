@@ -0,0 +1,325 @@
+import java.util.Arrays;
+
+/**
+ * Simple subgoal graph of a 4-connected grid (Uras, Koenig and Hernandez).
+ *
+ * Subgoals sit at convex wall corners: open cells with a wall diagonally next to them
+ * whose two neighbors beside that wall are open. Two cells are h-reachable if a
+ * monotone path joins them (one that only ever moves towards the other cell, so its
+ * length is the Manhattan distance). Every shortest path can be cut at subgoals into
+ * h-reachable pieces, so a search only needs the subgoals plus an edge between every
+ * pair that is directly h-reachable, through a monotone path touching no other subgoal.
+ *
+ * Of those edges, the ones whose ends are also joined by a monotone path through a
+ * third subgoal are dropped: going through that subgoal is just as short, and its two
+ * edges are shorter, so by induction on length every distance is kept. On open and
+ * cave maps most long edges are of this kind; keeping them gave several hundred edges
+ * per subgoal. An edge can survive in one direction only, so the graph is directed.
+ *
+ * Queries connect the start and the end to the subgoals directly h-reachable from them
+ * and search that much smaller graph (see PathfindingAlgorithm.subgoalGraph); refine()
+ * turns each edge back into grid moves, preferring straight runs.
+ *
+ * The graph is computed for the walls at construction time and has to be rebuilt
+ * whenever a wall changes. It is immutable, so concurrent searches can share it.
+ */
+public class SubgoalGraph {
+    public static final int NONE = -1;
+    
+    private final int gridSize;
+    private final boolean[] open;       // Indexed by x * gridSize + y
+    private final int[] subgoalIndex;   // NONE for cells that are not subgoals
+    private final int[] subgoalCells;
+    private final int[] edgeStart;      // Edges of subgoal i: edgeTargets[edgeStart[i] .. edgeStart[i + 1])
+    private final int[] edgeTargets;    // Target cells
+    
+    public SubgoalGraph(Node[][] grid, int gridSize) {
+        this.gridSize = gridSize;
+        int cells = gridSize * gridSize;
+        this.open = new boolean[cells];
+        for (int x = 0; x < gridSize; x++) {
+            for (int y = 0; y < gridSize; y++) {
+                open[x * gridSize + y] = grid[x][y].isWalkable();
+            }
+        }
+        
+        this.subgoalIndex = new int[cells];
+        Arrays.fill(subgoalIndex, NONE);
+        int count = 0;
+        int[] found = new int[64];
+        for (int cell = 0; cell < cells; cell++) {
+            if (isCorner(cell)) {
+                if (count == found.length) found = Arrays.copyOf(found, count * 2);
+                subgoalIndex[cell] = count;
+                found[count++] = cell;
+            }
+        }
+        this.subgoalCells = Arrays.copyOf(found, count);
+        
+        // Edges, in compressed rows: the scan from each subgoal lists its direct neighbors
+        // that are not also reached through another subgoal
+        this.edgeStart = new int[count + 1];
+        int[] targets = new int[Math.max(16, count * 4)];
+        int edges = 0;
+        Scan scan = new Scan();
+        for (int i = 0; i < count; i++) {
+            int reached = scan.run(subgoalCells[i], NONE);
+            if (edges + reached > targets.length) {
+                targets = Arrays.copyOf(targets, Math.max(targets.length * 2, edges + reached));
+            }
+            System.arraycopy(scan.found, 0, targets, edges, reached);
+            edges += reached;
+            edgeStart[i + 1] = edges;
+        }
+        this.edgeTargets = Arrays.copyOf(targets, edges);
+    }
+    
+    public int getGridSize() {
+        return gridSize;
+    }
+    
+    public int getSubgoalCount() {
+        return subgoalCells.length;
+    }
+    
+    /**
+     * Number of directed edges (most connections are stored in both directions).
+     */
+    public int getEdgeCount() {
+        return edgeTargets.length;
+    }
+    
+    public boolean isSubgoal(int cell) {
+        return subgoalIndex[cell] != NONE;
+    }
+    
+    /**
+     * Edges of a cell are edgeTarget(i) for i in [edgeBegin(cell), edgeEnd(cell));
+     * cells that are not subgoals have none.
+     */
+    public int edgeBegin(int cell) {
+        int index = subgoalIndex[cell];
+        return index == NONE ? 0 : edgeStart[index];
+    }
+    
+    public int edgeEnd(int cell) {
+        int index = subgoalIndex[cell];
+        return index == NONE ? 0 : edgeStart[index + 1];
+    }
+    
+    public int edgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+    
+    /**
+     * Cells of the subgoals directly h-reachable from an open cell, less the redundant
+     * ones the edges leave out, plus target itself if it is directly h-reachable too
+     * (pass NONE for no target). Start to end reachability comes from the same scan.
+     */
+    public int[] directSubgoals(int cell, int target) {
+        Scan scan = new Scan();
+        int reached = scan.run(cell, target);
+        return Arrays.copyOf(scan.found, reached);
+    }
+    
+    /**
+     * Writes a monotone path from one cell to an h-reachable other cell into path,
+     * starting at position: every cell after from, up to and including to. Tries the
+     * two straight L-shaped routes first and only searches the rectangle between the
+     * cells if both are blocked.
+     *
+     * @return the position after the last cell written
+     */
+    public int refine(int from, int to, int[] path, int position) {
+        int fromX = from / gridSize;
+        int fromY = from % gridSize;
+        int toX = to / gridSize;
+        int toY = to % gridSize;
+        
+        if (isClear(fromX, fromY, toX, fromY) && isClear(toX, fromY, toX, toY)) {
+            position = walk(fromX, fromY, toX, fromY, path, position);
+            return walk(toX, fromY, toX, toY, path, position);
+        }
+        if (isClear(fromX, fromY, fromX, toY) && isClear(fromX, toY, toX, toY)) {
+            position = walk(fromX, fromY, fromX, toY, path, position);
+            return walk(fromX, toY, toX, toY, path, position);
+        }
+        
+        boolean[] reaches = reachesTarget(fromX, fromY, toX, toY);
+        if (!reaches[0]) {
+            throw new IllegalStateException("No monotone path from " + from + " to " + to);
+        }
+        int dx = Integer.signum(toX - fromX);
+        int dy = Integer.signum(toY - fromY);
+        int width = Math.abs(toX - fromX) + 1;
+        int height = Math.abs(toY - fromY) + 1;
+        
+        // Walk it, keeping the current direction as long as possible
+        int i = 0;
+        int j = 0;
+        boolean alongX = true;
+        while (i < width - 1 || j < height - 1) {
+            boolean canX = i + 1 < width && reaches[(i + 1) * height + j];
+            boolean canY = j + 1 < height && reaches[i * height + j + 1];
+            alongX = alongX ? canX : !canY;
+            if (alongX) i++;
+            else j++;
+            path[position++] = (fromX + i * dx) * gridSize + fromY + j * dy;
+        }
+        return position;
+    }
+    
+    /**
+     * Which cells of the rectangle between two cells can reach the second one
+     * monotonically, indexed by steps from the first: i * height + j.
+     */
+    private boolean[] reachesTarget(int fromX, int fromY, int toX, int toY) {
+        int dx = Integer.signum(toX - fromX);
+        int dy = Integer.signum(toY - fromY);
+        int width = Math.abs(toX - fromX) + 1;
+        int height = Math.abs(toY - fromY) + 1;
+        boolean[] reaches = new boolean[width * height];
+        for (int i = width - 1; i >= 0; i--) {
+            for (int j = height - 1; j >= 0; j--) {
+                int cell = (fromX + i * dx) * gridSize + fromY + j * dy;
+                reaches[i * height + j] = open[cell] && (i == width - 1 && j == height - 1
+                    || i + 1 < width && reaches[(i + 1) * height + j]
+                    || j + 1 < height && reaches[i * height + j + 1]);
+            }
+        }
+        return reaches;
+    }
+    
+    /**
+     * Open cell with a wall diagonally next to it and open cells on both sides of that wall.
+     */
+    private boolean isCorner(int cell) {
+        if (!open[cell]) return false;
+        int x = cell / gridSize;
+        int y = cell % gridSize;
+        for (int dx = -1; dx <= 1; dx += 2) {
+            for (int dy = -1; dy <= 1; dy += 2) {
+                if (isOpen(x + dx, y) && isOpen(x, y + dy) && !isOpen(x + dx, y + dy)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private boolean isOpen(int x, int y) {
+        return x >= 0 && x < gridSize && y >= 0 && y < gridSize && open[x * gridSize + y];
+    }
+    
+    /**
+     * Whether every cell of a horizontal or vertical segment is open.
+     */
+    private boolean isClear(int x1, int y1, int x2, int y2) {
+        int dx = Integer.signum(x2 - x1);
+        int dy = Integer.signum(y2 - y1);
+        for (int x = x1, y = y1; ; x += dx, y += dy) {
+            if (!open[x * gridSize + y]) return false;
+            if (x == x2 && y == y2) return true;
+        }
+    }
+    
+    /**
+     * Appends the cells of a straight segment after its first cell.
+     */
+    private int walk(int x1, int y1, int x2, int y2, int[] path, int position) {
+        int dx = Integer.signum(x2 - x1);
+        int dy = Integer.signum(y2 - y1);
+        for (int x = x1, y = y1; x != x2 || y != y2; ) {
+            x += dx;
+            y += dy;
+            path[position++] = x * gridSize + y;
+        }
+        return position;
+    }
+    
+    /**
+     * Finds the cells directly h-reachable from an origin, one quadrant at a time.
+     *
+     * Within the quadrant (dx, dy) a cell is reached if it is open and the cell before
+     * it in x or in y was passed; subgoals are reached but not passed. Each column
+     * only needs the passed rows of the previous one, stamped into one array.
+     *
+     * Reached cells that a monotone path through another subgoal also gets to are
+     * stopped like subgoals: every subgoal beyond them is reached that way too, and its
+     * edge would be redundant. This keeps the scan near the origin on open maps. It
+     * misses a detour that only passes through unreached cells, which keeps a redundant
+     * edge now and then but never loses a shortest path.
+     */
+    private final class Scan {
+        private final int[] passed = new int[gridSize]; // Stamp of the last column that passed row j
+        private final int[] detoured = new int[gridSize]; // Same, for reached cells that stopped
+        private int stamp;
+        private int[] found = new int[16];
+        private int count;
+        
+        int run(int origin, int target) {
+            count = 0;
+            for (int dx = -1; dx <= 1; dx += 2) {
+                for (int dy = -1; dy <= 1; dy += 2) {
+                    quadrant(origin, dx, dy, target);
+                }
+            }
+            return count;
+        }
+        
+        private void quadrant(int origin, int dx, int dy, int target) {
+            int originX = origin / gridSize;
+            int originY = origin % gridSize;
+            int columns = dx > 0 ? gridSize - originX : originX + 1;
+            int rows = dy > 0 ? gridSize - originY : originY + 1;
+            if (stamp > Integer.MAX_VALUE - columns - 2) {
+                Arrays.fill(passed, 0);
+                Arrays.fill(detoured, 0);
+                stamp = 0;
+            }
+            int base = stamp;
+            stamp += columns + 1;
+            
+            int low = 0;  // Passed rows of the previous column lie in [low, high]
+            int high = 0;
+            for (int i = 0; i < columns; i++) {
+                int mark = base + i + 1;
+                int x = originX + i * dx;
+                int newLow = -1;
+                int newHigh = -1;
+                for (int j = low; j < rows; j++) {
+                    boolean fromBefore = i == 0 ? j == 0 : passed[j] == mark - 1;
+                    boolean fromBelow = j > low && passed[j - 1] == mark;
+                    if (!fromBefore && !fromBelow) {
+                        if (j > high) break;
+                        continue;
+                    }
+                    int cell = x * gridSize + originY + j * dy;
+                    if (!open[cell]) continue;
+                    if (i > 0 || j > 0) {
+                        // Cells on the axes belong to two quadrants; only one reports them
+                        boolean owned = (i > 0 || dx > 0) && (j > 0 || dy > 0);
+                        if (cell == target && owned) add(cell);
+                        boolean detour = i > 0 && detoured[j] == mark - 1 || j > 0 && detoured[j - 1] == mark;
+                        if (detour || subgoalIndex[cell] != NONE) {
+                            if (owned && cell != target && !detour) add(cell);
+                            detoured[j] = mark;
+                            continue;
+                        }
+                    }
+                    passed[j] = mark;
+                    if (newLow < 0) newLow = j;
+                    newHigh = j;
+                }
+                if (newLow < 0) break;
+                low = newLow;
+                high = newHigh;
+            }
+        }
+        
+        private void add(int cell) {
+            if (count == found.length) found = Arrays.copyOf(found, count * 2);
+            found[count++] = cell;
+        }
+    }
+}
@@ -28,6 +28,12 @@ javac *.java
 
 if [ $? -eq 0 ]; then
     echo "Compilation successful!"
+    
+    # Optional SIMD distance transform (used when run with --add-modules jdk.incubator.vector)
+    if java --list-modules 2>/dev/null | grep -q "jdk.incubator.vector"; then
+        javac --add-modules jdk.incubator.vector -cp . -d . simd/VectorDistanceTransform.java 2>/dev/null \
+            && echo "Compiled Vector API distance transform (simd/)."
+    fi
     echo ""
     echo "Starting Pathfinding Visualizer..."
     echo "=================================="
@@ -0,0 +1,317 @@
+import jdk.incubator.vector.*;
+
+/**
+ * DistanceTransform on the incubating Vector API: the initialization, the row-to-row
+ * relaxation and the mask operations process one vector of cells per instruction.
+ * The scans along a row are inherently sequential and are inherited from the scalar
+ * implementation.
+ *
+ * Distances use int lanes; masks are loaded as bytes (one boolean per lane), so a
+ * 512-bit register combines 64 cells at a time.
+ *
+ * The JIT only turns vector operations into SIMD instructions when the species is a
+ * compile-time constant, so each width is its own subclass with its loops written
+ * against a static final species; the scalar tails are shared here. 64-bit vectors
+ * (two int lanes) are not offered: x86 has no such registers and they are emulated.
+ *
+ * Compiled separately because it needs the module:
+ *   javac --add-modules jdk.incubator.vector -cp . -d . simd/VectorDistanceTransform.java
+ * and only loaded (through DistanceTransform.create()) when the JVM was started with
+ * --add-modules jdk.incubator.vector.
+ */
+public abstract class VectorDistanceTransform extends DistanceTransform {
+    
+    /**
+     * Implementation for the given vector width in bits (0 = the platform's preferred
+     * width). Widths above the preferred one would be emulated, so they are rejected.
+     */
+    public static VectorDistanceTransform forWidth(int bits) {
+        int preferred = IntVector.SPECIES_PREFERRED.vectorBitSize();
+        if (bits == 0) {
+            bits = preferred;
+        }
+        if (bits > preferred) {
+            throw new IllegalArgumentException(bits + "-bit vectors are not supported (max " + preferred + ")");
+        }
+        switch (bits) {
+            case 128: return new Width128();
+            case 256: return new Width256();
+            case 512: return new Width512();
+            default:  throw new IllegalArgumentException("Unsupported vector width: " + bits);
+        }
+    }
+    
+    protected abstract int bits();
+    
+    // Vector loops; each returns the index where the scalar tail starts
+    protected abstract int initializeVectors(boolean[] walls, int[] distance);
+    
+    protected abstract int relaxRowVectors(int[] distance, int row, int neighborRow, int length);
+    
+    protected abstract int andVectors(boolean[] a, boolean[] b, boolean[] out);
+    
+    protected abstract int orVectors(boolean[] a, boolean[] b, boolean[] out);
+    
+    protected abstract int andNotVectors(boolean[] a, boolean[] b, boolean[] out);
+    
+    protected abstract int countVectors(boolean[] mask, int[] count);
+    
+    @Override
+    public String getName() {
+        return "vector " + bits() + "-bit (" + bits() / Integer.SIZE + " lanes)";
+    }
+    
+    @Override
+    protected void initialize(boolean[] walls, int[] distance) {
+        for (int i = initializeVectors(walls, distance); i < walls.length; i++) {
+            distance[i] = walls[i] ? 0 : INFINITY;
+        }
+    }
+    
+    @Override
+    protected void relaxRow(int[] distance, int row, int neighborRow, int length) {
+        for (int y = relaxRowVectors(distance, row, neighborRow, length); y < length; y++) {
+            distance[row + y] = Math.min(distance[row + y], distance[neighborRow + y] + 1);
+        }
+    }
+    
+    @Override
+    public void and(boolean[] a, boolean[] b, boolean[] out) {
+        for (int i = andVectors(a, b, out); i < out.length; i++) {
+            out[i] = a[i] & b[i];
+        }
+    }
+    
+    @Override
+    public void or(boolean[] a, boolean[] b, boolean[] out) {
+        for (int i = orVectors(a, b, out); i < out.length; i++) {
+            out[i] = a[i] | b[i];
+        }
+    }
+    
+    @Override
+    public void andNot(boolean[] a, boolean[] b, boolean[] out) {
+        for (int i = andNotVectors(a, b, out); i < out.length; i++) {
+            out[i] = a[i] & !b[i];
+        }
+    }
+    
+    @Override
+    public int count(boolean[] mask) {
+        int[] count = new int[1];
+        for (int i = countVectors(mask, count); i < mask.length; i++) {
+            if (mask[i]) count[0]++;
+        }
+        return count[0];
+    }
+    
+    static final class Width128 extends VectorDistanceTransform {
+        private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_128;
+        private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_128;
+        
+        @Override
+        protected int bits() {
+            return 128;
+        }
+        
+        @Override
+        protected int initializeVectors(boolean[] walls, int[] distance) {
+            IntVector infinity = IntVector.broadcast(SPECIES, INFINITY);
+            int i = 0;
+            for (; i < SPECIES.loopBound(walls.length); i += SPECIES.length()) {
+                infinity.blend(0, VectorMask.fromArray(SPECIES, walls, i)).intoArray(distance, i);
+            }
+            return i;
+        }
+        
+        @Override
+        protected int relaxRowVectors(int[] distance, int row, int neighborRow, int length) {
+            int y = 0;
+            for (; y < SPECIES.loopBound(length); y += SPECIES.length()) {
+                IntVector neighbor = IntVector.fromArray(SPECIES, distance, neighborRow + y);
+                IntVector.fromArray(SPECIES, distance, row + y).min(neighbor.add(1)).intoArray(distance, row + y);
+            }
+            return y;
+        }
+        
+        @Override
+        protected int andVectors(boolean[] a, boolean[] b, boolean[] out) {
+            int i = 0;
+            for (; i < BYTES.loopBound(out.length); i += BYTES.length()) {
+                ByteVector right = ByteVector.fromBooleanArray(BYTES, b, i);
+                ByteVector.fromBooleanArray(BYTES, a, i).and(right).intoBooleanArray(out, i);
+            }
+            return i;
+        }
+        
+        @Override
+        protected int orVectors(boolean[] a, boolean[] b, boolean[] out) {
+            int i = 0;
+            for (; i < BYTES.loopBound(out.length); i += BYTES.length()) {
+                ByteVector right = ByteVector.fromBooleanArray(BYTES, b, i);
+                ByteVector.fromBooleanArray(BYTES, a, i).or(right).intoBooleanArray(out, i);
+            }
+            return i;
+        }
+        
+        @Override
+        protected int andNotVectors(boolean[] a, boolean[] b, boolean[] out) {
+            int i = 0;
+            for (; i < BYTES.loopBound(out.length); i += BYTES.length()) {
+                ByteVector right = ByteVector.fromBooleanArray(BYTES, b, i);
+                ByteVector.fromBooleanArray(BYTES, a, i).lanewise(VectorOperators.AND_NOT, right).intoBooleanArray(out, i);
+            }
+            return i;
+        }
+        
+        @Override
+        protected int countVectors(boolean[] mask, int[] count) {
+            int i = 0;
+            for (; i < BYTES.loopBound(mask.length); i += BYTES.length()) {
+                // At most 64 lanes of 0/1, so the byte sum cannot overflow
+                count[0] += ByteVector.fromBooleanArray(BYTES, mask, i).reduceLanes(VectorOperators.ADD);
+            }
+            return i;
+        }
+    }
+    
+    static final class Width256 extends VectorDistanceTransform {
+        private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_256;
+        private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_256;
+        
+        @Override
+        protected int bits() {
+            return 256;
+        }
+        
+        @Override
+        protected int initializeVectors(boolean[] walls, int[] distance) {
+            IntVector infinity = IntVector.broadcast(SPECIES, INFINITY);
+            int i = 0;
+            for (; i < SPECIES.loopBound(walls.length); i += SPECIES.length()) {
+                infinity.blend(0, VectorMask.fromArray(SPECIES, walls, i)).intoArray(distance, i);
+            }
+            return i;
+        }
+        
+        @Override
+        protected int relaxRowVectors(int[] distance, int row, int neighborRow, int length) {
+            int y = 0;
+            for (; y < SPECIES.loopBound(length); y += SPECIES.length()) {
+                IntVector neighbor = IntVector.fromArray(SPECIES, distance, neighborRow + y);
+                IntVector.fromArray(SPECIES, distance, row + y).min(neighbor.add(1)).intoArray(distance, row + y);
+            }
+            return y;
+        }
+        
+        @Override
+        protected int andVectors(boolean[] a, boolean[] b, boolean[] out) {
+            int i = 0;
+            for (; i < BYTES.loopBound(out.length); i += BYTES.length()) {
+                ByteVector right = ByteVector.fromBooleanArray(BYTES, b, i);
+                ByteVector.fromBooleanArray(BYTES, a, i).and(right).intoBooleanArray(out, i);
+            }
+            return i;
+        }
+        
+        @Override
+        protected int orVectors(boolean[] a, boolean[] b, boolean[] out) {
+            int i = 0;
+            for (; i < BYTES.loopBound(out.length); i += BYTES.length()) {
+                ByteVector right = ByteVector.fromBooleanArray(BYTES, b, i);
+                ByteVector.fromBooleanArray(BYTES, a, i).or(right).intoBooleanArray(out, i);
+            }
+            return i;
+        }
+        
+        @Override
+        protected int andNotVectors(boolean[] a, boolean[] b, boolean[] out) {
+            int i = 0;
+            for (; i < BYTES.loopBound(out.length); i += BYTES.length()) {
+                ByteVector right = ByteVector.fromBooleanArray(BYTES, b, i);
+                ByteVector.fromBooleanArray(BYTES, a, i).lanewise(VectorOperators.AND_NOT, right).intoBooleanArray(out, i);
+            }
+            return i;
+        }
+        
+        @Override
+        protected int countVectors(boolean[] mask, int[] count) {
+            int i = 0;
+            for (; i < BYTES.loopBound(mask.length); i += BYTES.length()) {
+                // At most 64 lanes of 0/1, so the byte sum cannot overflow
+                count[0] += ByteVector.fromBooleanArray(BYTES, mask, i).reduceLanes(VectorOperators.ADD);
+            }
+            return i;
+        }
+    }
+    
+    static final class Width512 extends VectorDistanceTransform {
+        private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_512;
+        private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_512;
+        
+        @Override
+        protected int bits() {
+            return 512;
+        }
+        
+        @Override
+        protected int initializeVectors(boolean[] walls, int[] distance) {
+            IntVector infinity = IntVector.broadcast(SPECIES, INFINITY);
+            int i = 0;
+            for (; i < SPECIES.loopBound(walls.length); i += SPECIES.length()) {
+                infinity.blend(0, VectorMask.fromArray(SPECIES, walls, i)).intoArray(distance, i);
+            }
+            return i;
+        }
+        
+        @Override
+        protected int relaxRowVectors(int[] distance, int row, int neighborRow, int length) {
+            int y = 0;
+            for (; y < SPECIES.loopBound(length); y += SPECIES.length()) {
+                IntVector neighbor = IntVector.fromArray(SPECIES, distance, neighborRow + y);
+                IntVector.fromArray(SPECIES, distance, row + y).min(neighbor.add(1)).intoArray(distance, row + y);
+            }
+            return y;
+        }
+        
+        @Override
+        protected int andVectors(boolean[] a, boolean[] b, boolean[] out) {
+            int i = 0;
+            for (; i < BYTES.loopBound(out.length); i += BYTES.length()) {
+                ByteVector right = ByteVector.fromBooleanArray(BYTES, b, i);
+                ByteVector.fromBooleanArray(BYTES, a, i).and(right).intoBooleanArray(out, i);
+            }
+            return i;
+        }
+        
+        @Override
+        protected int orVectors(boolean[] a, boolean[] b, boolean[] out) {
+            int i = 0;
+            for (; i < BYTES.loopBound(out.length); i += BYTES.length()) {
+                ByteVector right = ByteVector.fromBooleanArray(BYTES, b, i);
+                ByteVector.fromBooleanArray(BYTES, a, i).or(right).intoBooleanArray(out, i);
+            }
+            return i;
+        }
+        
+        @Override
+        protected int andNotVectors(boolean[] a, boolean[] b, boolean[] out) {
+            int i = 0;
+            for (; i < BYTES.loopBound(out.length); i += BYTES.length()) {
+                ByteVector right = ByteVector.fromBooleanArray(BYTES, b, i);
+                ByteVector.fromBooleanArray(BYTES, a, i).lanewise(VectorOperators.AND_NOT, right).intoBooleanArray(out, i);
+            }
+            return i;
+        }
+        
+        @Override
+        protected int countVectors(boolean[] mask, int[] count) {
+            int i = 0;
+            for (; i < BYTES.loopBound(mask.length); i += BYTES.length()) {
+                // At most 64 lanes of 0/1, so the byte sum cannot overflow
+                count[0] += ByteVector.fromBooleanArray(BYTES, mask, i).reduceLanes(VectorOperators.ADD);
+            }
+            return i;
+        }
+    }
+}